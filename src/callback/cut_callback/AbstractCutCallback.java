@@ -1,6 +1,8 @@
 package callback.cut_callback;
 import java.util.ArrayList;
+import java.util.HashMap;
 
+import callback.branch_callback.BranchDepth;
 import callback.control_callback.IControlCallback;
 import formulation.interfaces.IFormulation;
 import ilog.concert.IloException;
@@ -8,9 +10,11 @@ import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumVar;
 import ilog.concert.IloRange;
 import ilog.cplex.IloCplex.CutManagement;
+import ilog.cplex.IloCplex.NodeId;
 import ilog.cplex.IloCplex.UserCutCallback;
 import inequality_family.Range;
 import separation.AbstractSeparation;
+import separation.ThreadLocalSeparations;
 import variable.CallbackVariableGetter;
 import variable.VariableGetter;
 
@@ -20,7 +24,33 @@ public abstract class AbstractCutCallback extends UserCutCallback implements ICo
 	public IFormulation formulation = null;
 	public double root_relaxation = -1.0;
 	public int iterations = 0;
-	public ArrayList<AbstractSeparation> sep = new ArrayList<AbstractSeparation>();
+	public ArrayList<AbstractSeparation<?>> sep = new ArrayList<AbstractSeparation<?>>();
+
+	/** If not null, each thread of cplex uses its own copy of the separation algorithms and <sep> is only used to gather their statistics (see mergeThreadStatistics()) */
+	protected ThreadLocalSeparations threadSep = null;
+
+	/** Policy which limits the calls to each separation algorithm, identified by its name (the separation algorithms without policy are performed at each call) */
+	public HashMap<String, SeparationThrottle> throttles = new HashMap<>();
+
+	/**
+	 * Node at which the callback is called in a thread
+	 */
+	private class NodeContext{
+		NodeId id = null;
+		int depth = 0;
+		long nodeNb = 0;
+
+		/** Number of cut rounds already performed at this node */
+		int round = 0;
+	}
+
+	private ThreadLocal<NodeContext> node = new ThreadLocal<NodeContext>(){
+
+		@Override
+		protected NodeContext initialValue() {
+			return new NodeContext();
+		}
+	};
 
 	public double eps = 0.0000001;
 	private CallbackVariableGetter rvg;
@@ -40,10 +70,18 @@ public abstract class AbstractCutCallback extends UserCutCallback implements ICo
 			root_relaxation = this.getBestObjValuePublic();
 
 		if(!this.isAfterCutLoop()){
-			iterations++;
-			time -= formulation.getCplex().getCplexTime();
+
+			if(!throttles.isEmpty())
+				updateNodeContext();
+
+			double t = -formulation.getCplex().getCplexTime();
 			separates();
-			time += formulation.getCplex().getCplexTime();
+			t += formulation.getCplex().getCplexTime();
+
+			synchronized(this){
+				iterations++;
+				time += t;
+			}
 		}
 
 	}
@@ -51,7 +89,7 @@ public abstract class AbstractCutCallback extends UserCutCallback implements ICo
 	public void addRange(IloRange range, int idSep){
 		try {
 			this.add(range, CutManagement.UseCutFilter);
-			sep.get(idSep).added_cuts++;
+			separations().get(idSep).added_cuts++;
 		} catch (IloException e) {
 			e.printStackTrace();
 		}
@@ -61,7 +99,7 @@ public abstract class AbstractCutCallback extends UserCutCallback implements ICo
 		try {
 			this.addLocal(formulation.getCplex().range(ri.lbound, ri.expr, ri.ubound));
 			if(idSep >= 0)
-				sep.get(idSep).added_cuts++;
+				separations().get(idSep).added_cuts++;
 		} catch (IloException e) {
 			e.printStackTrace();
 		}
@@ -71,7 +109,7 @@ public abstract class AbstractCutCallback extends UserCutCallback implements ICo
 		try {
 			this.add(formulation.getCplex().range(ri.lbound, ri.expr, ri.ubound), CutManagement.UseCutFilter);
 			if(idSep >= 0)
-				sep.get(idSep).added_cuts++;
+				separations().get(idSep).added_cuts++;
 		} catch (IloException e) {
 			e.printStackTrace();
 		}
@@ -80,7 +118,7 @@ public abstract class AbstractCutCallback extends UserCutCallback implements ICo
 	public void addLe(IloLinearNumExpr expr, double ubound, int idSep){
 		try {
 			this.add(formulation.getCplex().le(expr, ubound), CutManagement.UseCutFilter);
-			sep.get(idSep).added_cuts++;
+			separations().get(idSep).added_cuts++;
 		} catch (IloException e) {
 			e.printStackTrace();
 		}
@@ -89,7 +127,7 @@ public abstract class AbstractCutCallback extends UserCutCallback implements ICo
 	public void addGe(IloLinearNumExpr expr, double lbound, int idSep){
 		try {
 			this.add(formulation.getCplex().ge(expr, lbound), CutManagement.UseCutFilter);
-			sep.get(idSep).added_cuts++;
+			separations().get(idSep).added_cuts++;
 		} catch (IloException e) {
 			e.printStackTrace();
 		}
@@ -97,6 +135,78 @@ public abstract class AbstractCutCallback extends UserCutCallback implements ICo
 
 	public abstract void separates() throws IloException;
 
+	private void updateNodeContext() throws IloException{
+
+		NodeContext c = node.get();
+		NodeId id = getNodeId();
+
+		if(id != null && id.equals(c.id))
+			c.round++;
+		else{
+			c.id = id;
+			c.round = 0;
+		}
+
+		c.nodeNb = getNnodes64();
+
+		/* The depth is only known if a branch callback stores it in the node data (see BranchDepth) ; otherwise all the nodes except the root are considered to be at depth 1 */
+		Object data = getNodeData();
+
+		if(data instanceof BranchDepth.Depth)
+			c.depth = ((BranchDepth.Depth)data).depth;
+		else
+			c.depth = c.nodeNb == 0 ? 0 : 1;
+	}
+
+	/**
+	 * Test if a separation algorithm must be performed at the current node according to its throttling policy
+	 * @param s The separation algorithm
+	 * @return True if the separation algorithm must be performed
+	 */
+	protected boolean shouldSeparate(AbstractSeparation<?> s){
+
+		SeparationThrottle t = throttles.get(s.name);
+
+		if(t == null)
+			return true;
+
+		NodeContext c = node.get();
+		return t.shouldSeparate(c.depth, c.nodeNb, c.round);
+	}
+
+	/**
+	 * Record the result of a call to a separation algorithm in its throttling policy
+	 * @param s The separation algorithm
+	 * @param cutNb Number of cuts found
+	 */
+	protected void recordSeparation(AbstractSeparation<?> s, int cutNb){
+
+		SeparationThrottle t = throttles.get(s.name);
+
+		if(t != null)
+			t.record(cutNb > 0);
+	}
+
+	/**
+	 * @return The separation algorithms of the current thread
+	 */
+	public ArrayList<AbstractSeparation<?>> separations(){
+
+		if(threadSep == null)
+			return sep;
+		else
+			return threadSep.get();
+	}
+
+	/**
+	 * Set the number of cuts added by the separation algorithms in <sep> to the total over all the threads (must be called once the resolution is over)
+	 */
+	public void mergeThreadStatistics(){
+
+		if(threadSep != null)
+			threadSep.mergeStatistics(sep);
+	}
+
 	public void abortVisible(){
 		this.abort();
 	}
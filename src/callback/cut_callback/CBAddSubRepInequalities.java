@@ -9,6 +9,7 @@ import inequality_family.SubRepresentativeInequality;
 
 public class CBAddSubRepInequalities extends AbstractCutCallback{
 
+	/** Number of sub representative inequalities added (updated by several threads, use countAddedInequality()) */
 	public static int addedInequalities = 0;
 	
 	private IFEdgeVNodeClusterV specializedFormulation;
@@ -19,6 +20,10 @@ public class CBAddSubRepInequalities extends AbstractCutCallback{
 		
 	}
 
+	public static synchronized void countAddedInequality(){
+		addedInequalities++;
+	}
+
 	@Override
 	public void separates() throws IloException {
 		
@@ -45,7 +50,7 @@ public class CBAddSubRepInequalities extends AbstractCutCallback{
 
 						this.addRange(sri.getRange(), -1);
 //						System.out.println("Range ajoutée: " + fv.i + " " + fv.j);
-						addedInequalities++;
+						countAddedInequality();
 					}
 				}
 				
@@ -9,33 +9,58 @@ import separation.AbstractSeparation;
 import separation.SeparationKP1DenseHeuristicDiversification;
 import separation.SeparationSTGrotschell;
 import separation.SeparationSTLabbe;
+import separation.ThreadLocalSeparations;
 
+@SuppressWarnings("rawtypes")
 public class CutCallback_all extends AbstractCutCallback{
 
-	ArrayList<AbstractSeparation> al = new ArrayList<AbstractSeparation>();
-	
-
-	public CutCallback_all(IFEdgeVClusterNb formulation) {
+	public CutCallback_all(final IFEdgeVClusterNb formulation) {
 		super(formulation);
 
-		sep.add(new SeparationSTGrotschell(formulation, this.variableGetter(), 500));
-		sep.add(new SeparationKP1DenseHeuristicDiversification(formulation, this.variableGetter()));
-		sep.add(new SeparationSTLabbe(formulation, this.variableGetter()));
-//		sep.add(new Separation_ST_KL(this, 2, true));
-//		sep.add(new Separation_DependentSet_KL(this, 2, true));
-//		sep.add(new Separation_TCC_KL_Fixed_size(this, 2, null, true));
+		threadSep = new ThreadLocalSeparations(){
+
+			@Override
+			protected ArrayList<AbstractSeparation<?>> create() {
+				return createSeparations(formulation);
+			}
+		};
+
+		sep = createSeparations(formulation);
+	}
+
+	private ArrayList<AbstractSeparation<?>> createSeparations(IFEdgeVClusterNb formulation){
+
+		ArrayList<AbstractSeparation<?>> result = new ArrayList<>();
+
+		result.add(new SeparationSTGrotschell(formulation, this.variableGetter(), 500));
+		result.add(new SeparationKP1DenseHeuristicDiversification(formulation, this.variableGetter()));
+		result.add(new SeparationSTLabbe(formulation, this.variableGetter()));
+//		result.add(new Separation_ST_KL(this, 2, true));
+//		result.add(new Separation_DependentSet_KL(this, 2, true));
+//		result.add(new Separation_TCC_KL_Fixed_size(this, 2, null, true));
+
+		return result;
 	}
 
+	@SuppressWarnings("unchecked")
 	@Override
 	public void separates() throws IloException {
 
+		ArrayList<AbstractSeparation<?>> al = separations();
 		int i = 0;
 		boolean found = false;
 		
 		while(!found && i < al.size()){
 			
 			AbstractSeparation sep = al.get(i);
+
+			if(!shouldSeparate(sep)){
+				++i;
+				continue;
+			}
+
 			ArrayList<AbstractInequality> ineq = sep.separate();
+			recordSeparation(sep, ineq.size());
 			
 			if(ineq.size() > 0){
 				found = true;
@@ -3,57 +3,78 @@ package callback.cut_callback;
 import java.util.ArrayList;
 
 import formulation.interfaces.IFEdgeVClusterNb;
-import formulation.interfaces.IFEdgeVNodeClusterVNodeVConstrainedClusterNb;
-import formulation.interfaces.IFEdgeVNodeVClusterNb;
 import ilog.concert.IloException;
 import inequality_family.AbstractInequality;
 import separation.AbstractSeparation;
-import separation.SeparationKP1DenseHeuristicDiversification;
-import separation.SeparationPawInequalitiesHeuristic;
 import separation.SeparationSTLabbe;
-import separation.SeparationSubRepresentativeSansDoublon;
+import separation.ThreadLocalSeparations;
 
+/**
+ * Cut callback which only uses fast separation algorithms.
+ * Each thread of cplex uses its own copy of the separation algorithms.
+ *
+ * @author zach
+ *
+ */
+@SuppressWarnings("rawtypes")
 public class FastCutCallback extends AbstractCutCallback{
 	
 	public int MAX_CUT;
-	public ArrayList<AbstractSeparation<?>> sep_algo = new ArrayList<>();
 	
-	public FastCutCallback(IFEdgeVClusterNb formulation, int MAX_CUT) {
+	public FastCutCallback(final IFEdgeVClusterNb formulation, int MAX_CUT) {
 		super(formulation);
 		this.MAX_CUT = MAX_CUT;
-		
+
+		threadSep = new ThreadLocalSeparations(){
+
+			@Override
+			protected ArrayList<AbstractSeparation<?>> create() {
+				return createSeparations(formulation);
+			}
+		};
+
+		sep = createSeparations(formulation);
+	}
+
+	private ArrayList<AbstractSeparation<?>> createSeparations(IFEdgeVClusterNb formulation){
+
+		ArrayList<AbstractSeparation<?>> result = new ArrayList<>();
+
 		/* Grotschell ST */
-//		sep_algo.add(new Separation_ST_Grotschell(this, /MAX_CUT));
+//		result.add(new Separation_ST_Grotschell(this, /MAX_CUT));
 		
 		/* Labbe ST */
-		sep_algo.add(new SeparationSTLabbe(formulation, this.variableGetter()));
+		result.add(new SeparationSTLabbe(formulation, this.variableGetter()));
 		
 		/* Dependent set heuristic */
-		sep.add(new SeparationKP1DenseHeuristicDiversification(formulation, this.variableGetter()));
+//		result.add(new SeparationKP1DenseHeuristicDiversification(formulation, this.variableGetter()));
 
 		/* Paw inequalities */
-		if(formulation instanceof IFEdgeVNodeVClusterNb)
-			sep.add(new SeparationPawInequalitiesHeuristic((IFEdgeVNodeVClusterNb)formulation, this.variableGetter()));
+//		if(formulation instanceof IFEdgeVNodeVClusterNb)
+//			result.add(new SeparationPawInequalitiesHeuristic((IFEdgeVNodeVClusterNb)formulation, this.variableGetter()));
 		
 		/* Sub representative inequalities */
-		if(formulation instanceof IFEdgeVNodeClusterVNodeVConstrainedClusterNb)
-			sep.add(new SeparationSubRepresentativeSansDoublon((IFEdgeVNodeClusterVNodeVConstrainedClusterNb)formulation, this.variableGetter()));
-		
+//		if(formulation instanceof IFEdgeVNodeClusterVNodeVConstrainedClusterNb)
+//			result.add(new SeparationSubRepresentativeSansDoublon((IFEdgeVNodeClusterVNodeVConstrainedClusterNb)formulation, this.variableGetter()));
+
+		return result;
 	}
 
 	@Override
 	public void separates() throws IloException {
-		
-		
 
-		for(AbstractSeparation<?> algo : sep_algo){
+		ArrayList<AbstractSeparation<?>> algos = separations();
+
+		for(int i = 0 ; i < algos.size() ; ++i)
+			if(shouldSeparate(algos.get(i))){
 			
-			ArrayList<AbstractInequality<?>> ineq = algo.separate();
+				ArrayList<AbstractInequality<?>> ineq = algos.get(i).separate();
+				recordSeparation(algos.get(i), ineq.size());
 
-			for(AbstractInequality<?> in : ineq)
-				this.addRange(in.getRange(), 0);
+				for(AbstractInequality<?> in : ineq)
+					this.addRange(in.getRange(), i);
 			
-		}
+			}
 		
 	}
 
@@ -0,0 +1,130 @@
+package callback.cut_callback;
+
+/**
+ * Policy which limits the calls to a separation algorithm in a cut callback.
+ *
+ * A separation algorithm is performed at a node only if:
+ * - the depth of the node is at most <maxDepth>;
+ * - the number of nodes processed so far is a multiple of <nodeFrequency>;
+ * - less than <maxRoundsByNode> cut rounds have already been performed at this node;
+ * - the proportion of its last <successWindow> calls which found a cut is at least <minSuccessRate> (otherwise it is only performed once every <probeFrequency> calls, to detect when it becomes useful again).
+ *
+ * Typically, heavy separation algorithms are only performed at the root node or every k-th node while light ones are performed everywhere.
+ *
+ * The policy can be shared by the threads of cplex.
+ *
+ * @author zach
+ *
+ */
+public class SeparationThrottle {
+
+	/** Maximal depth of the nodes at which the separation is performed (0 if it is only performed at the root) */
+	public int maxDepth = Integer.MAX_VALUE;
+
+	/** The separation is only performed when the number of processed nodes is a multiple of this value (1 if it is performed at every node) */
+	public int nodeFrequency = 1;
+
+	/** Maximal number of cut rounds at a node in which the separation is performed */
+	public int maxRoundsByNode = Integer.MAX_VALUE;
+
+	/** Number of last calls used to compute the success rate */
+	public int successWindow = 20;
+
+	/** Minimal proportion of the last calls which found a cut (0 if the success rate is not considered) */
+	public double minSuccessRate = 0.0;
+
+	/** If the success rate is too low, the separation is performed once every <probeFrequency> calls */
+	public int probeFrequency = 10;
+
+	/** Result of the last calls (circular buffer) */
+	private boolean[] recent = null;
+	private int recentPosition = 0;
+	private int recentNb = 0;
+	private int recentSuccessNb = 0;
+
+	/** Number of calls skipped since the last call performed because of a low success rate */
+	private int skippedSinceLastProbe = 0;
+
+	/** Number of calls performed and skipped */
+	public int performedNb = 0;
+	public int skippedNb = 0;
+
+	/**
+	 * @return A policy which only performs the separation at the root node
+	 */
+	public static SeparationThrottle rootOnly(){
+		SeparationThrottle t = new SeparationThrottle();
+		t.maxDepth = 0;
+		return t;
+	}
+
+	/**
+	 * @param k Node frequency
+	 * @return A policy which performs the separation every k-th node
+	 */
+	public static SeparationThrottle everyKthNode(int k){
+		SeparationThrottle t = new SeparationThrottle();
+		t.nodeFrequency = Math.max(1, k);
+		return t;
+	}
+
+	/**
+	 * Test if the separation must be performed
+	 * @param depth Depth of the current node
+	 * @param nodeNb Number of nodes processed so far
+	 * @param round Number of cut rounds already performed at the current node
+	 * @return True if the separation must be performed
+	 */
+	public synchronized boolean shouldSeparate(int depth, long nodeNb, int round){
+
+		boolean result = depth <= maxDepth
+				&& (depth == 0 || nodeNb % nodeFrequency == 0)
+				&& round < maxRoundsByNode;
+
+		if(result && minSuccessRate > 0 && recentNb >= successWindow && recentSuccessNb < minSuccessRate * recentNb){
+
+			if(skippedSinceLastProbe + 1 < probeFrequency){
+				skippedSinceLastProbe++;
+				result = false;
+			}
+			else
+				skippedSinceLastProbe = 0;
+		}
+
+		if(result)
+			performedNb++;
+		else
+			skippedNb++;
+
+		return result;
+	}
+
+	/**
+	 * Record the result of a call to the separation
+	 * @param cutFound True if the call found at least one cut
+	 */
+	public synchronized void record(boolean cutFound){
+
+		if(recent == null || recent.length != successWindow){
+			recent = new boolean[Math.max(1, successWindow)];
+			recentPosition = 0;
+			recentNb = 0;
+			recentSuccessNb = 0;
+		}
+
+		if(recentNb == recent.length){
+			if(recent[recentPosition])
+				recentSuccessNb--;
+		}
+		else
+			recentNb++;
+
+		recent[recentPosition] = cutFound;
+
+		if(cutFound)
+			recentSuccessNb++;
+
+		recentPosition = (recentPosition + 1) % recent.length;
+	}
+
+}
@@ -1,20 +1,13 @@
 package callback.heuristic_callback;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Random;
-import java.util.TreeSet;
-
 import callback.control_callback.IControlCallback;
 import formulation.PartitionWithRepresentative;
-import formulation.PartitionWithTildes;
 import ilog.concert.IloException;
 import ilog.concert.IloNumVar;
 import ilog.cplex.IloCplex.HeuristicCallback;
+import mipstart.LocalSearch;
+import mipstart.RepresentativeSelection;
 import mipstart.SolutionManagerRepresentative;
-import mipstart.SolutionManagerTildes;
 import variable.CallbackVariableGetter;
 import variable.VariableGetter;
 
@@ -24,19 +17,32 @@ import variable.VariableGetter;
  * representative. For each other node i put it with the representative r wich
  * maximize x_i,r
  * 
+ * The solution is computed by RepresentativeSelection.
+ * 
  * @author zach
  * 
  */
 public class KClosestRepresentatives extends HeuristicCallback implements IControlCallback{
 
 	public static boolean onlyRoot = true;
+
+	/** Number of randomized restarts performed at each call (see RepresentativeSelection) */
+	public static int restartNb = 1;
+
+	/** True if the solution is improved by LocalSearch before being given to cplex */
+	public static boolean useLocalSearch = true;
+
 	PartitionWithRepresentative formulation;
 	SolutionManagerRepresentative sm;
 	private CallbackVariableGetter rvg;
 
+	/** Weights of the edges (see LocalSearch) */
+	double[][] weight;
+
 	public KClosestRepresentatives(PartitionWithRepresentative p) throws IloException {
 		this.formulation = p;
 		rvg = new CallbackVariableGetter(formulation.getCplex(), this);
+		weight = LocalSearch.weights(p);
 	}
 
 
@@ -46,148 +52,18 @@ public class KClosestRepresentatives extends HeuristicCallback implements IContr
 		if(!onlyRoot || this.getNnodes() == 0) {
 			this.sm = new SolutionManagerRepresentative(formulation);
 
-			TreeSet<Integer> t = new TreeSet<Integer>(new Comparator<Integer>(){
-
-
-				Random random = new Random();
-				double rep2 = -1;
-
-				@Override
-				public int compare(Integer o1, Integer o2) {
-
-					int result = 0;
-					try {
-						result = (int) (getRep(o2) - getRep(o1));
-					} catch (IloException e) {
-						e.printStackTrace();
-					}
-
-					if(result == 0){
-						if(random.nextInt(2) == 0)
-							result = -1;
-						else
-							result = 1;
-					}
-
-					return result;
-				}
-
-				public double getRep(int i) throws IloException {
-					return rvg.getValue(formulation.nodeVar(i));
-				}
-			});
-
-			/* Add all the nodes in the representative tree */
-			for(int i = 0 ; i < formulation.n() ; ++i)
-				t.add(i);
-
-			/* Find the K representative by taking the K first values of <t> */		
-			ArrayList<ArrayList<Integer>> clusters = new ArrayList<ArrayList<Integer>>();
-
-			Iterator<Integer> it = t.iterator();
-			int addedRep = 0;
-
-			List<Integer> representative = new ArrayList<>();
-
-			while(it.hasNext() && addedRep < formulation.KMax()){
-
-				int id = it.next();
-
-				/* Create a new cluster with the node <id> in it */
-				ArrayList<Integer> al = new ArrayList<Integer>();
-				al.add(id);
-				clusters.add(al);
-
-				representative.add(id);
-
-				addedRep ++;
-				//System.out.println("is representative : " + id);			
-			}
-
-
-
-			/* Find for each node its cluster */	
-
-			/* For each node */
-			for(int i = 0 ; i < formulation.n() ; ++i){
-
-				/* Find its best cluster */
-				int bestCluster = 0;
-
-				double bestValue = Double.MAX_VALUE;
-
-				/* If i is not the representative of the first cluster */
-				if(i != clusters.get(0).get(0))
-					bestValue = rvg.getValue(formulation.edgeVar(i, clusters.get(0).get(0)));
-
-
-				/* For each cluster */
-				for(int j = 0 ; j < formulation.KMax() ; ++j){
-
-					/* Get the cluster */
-					ArrayList<Integer> al = clusters.get(j);
-
-					/* Get the representative of the cluster */
-					int rep = al.get(0);
-
-					/* If <i> is the representative of cluster j */
-					if(i == rep){
-						bestValue = Double.MAX_VALUE;
-					}
-					else{
-						double v = rvg.getValue(formulation.edgeVar(i, rep));
-
-						if(v > bestValue){
-							bestValue = v;
-							bestCluster = j;
-						}
-					}
-				}
-
-				/* If i is not the representative of a cluster */
-				if(bestValue != Double.MAX_VALUE) {
-
-					/* Add i in the best cluster */
-					List<Integer> cluster = clusters.get(bestCluster);
-					cluster.add(i);
-
-					/* Update the representative if necessary */
-					if(representative.get(bestCluster) > i)
-						representative.set(bestCluster, i);
-
-				}
-
-			}
-
-			/* For each cluster */
-			for(int i = 0 ; i < clusters.size() ; i++){
-
-				List<Integer> cluster = clusters.get(i);
-
-				/* Get its representative ... */
-				int rep = representative.get(i);
-
-				/* ... and set it */
-				sm.setRep(rep, 1.0);
-
-			}
-
-
-			/* Set the edge variables of nodes inside the same cluster to 1 */
-			//		System.out.println("Clusters : ");		
-			/* For each cluster */
-			for(ArrayList<Integer> c : clusters){
-
-				//			System.out.println(c.toString());
-				for(int i = 0 ; i < c.size() ; ++i)
-					for(int j = 0 ; j < i ; ++j){
+			/* Select the representatives and the clusters from the values of the current relaxation */
+			RepresentativeSelection selection = new RepresentativeSelection(formulation);
+			selection.restartNb = restartNb;
+			selection.setValues(this.getValues(selection.nodeVar), this.getValues(selection.edgeVar));
+			selection.select();
 
-						//					System.out.println(c.get(j) + " - " + c.get(i));
+			int[] label = selection.label;
 
+			if(useLocalSearch)
+				label = LocalSearch.improve(weight, formulation.KMin(), formulation.KMax(), label);
 
-						sm.setEdge(c.get(j), c.get(i), 1.0);
-					}
-			}
+			sm.setLabels(label);
 
 			this.setSolution(sm.var, sm.val, sm.evaluate());
 		}
@@ -9,8 +9,9 @@ import formulation.PartitionXY;
 import ilog.concert.IloException;
 import ilog.concert.IloNumVar;
 import ilog.cplex.IloCplex.HeuristicCallback;
-import ilog.cplex.IloCplex.UnknownObjectException;
-import mipstart.SolutionManagerXY;
+import mipstart.LabelledPartition;
+import mipstart.LocalSearch;
+import mipstart.MIPStartExpansion;
 import variable.CallbackVariableGetter;
 import variable.VariableGetter;
 
@@ -26,14 +27,26 @@ import variable.VariableGetter;
 public class KClosestRepresentativesXY extends HeuristicCallback implements IControlCallback{
 
 	PartitionXY formulation;
-	SolutionManagerXY sm;
 	private CallbackVariableGetter rvg;
+
+	/** Weights of the edges (see LocalSearch) */
+	double[][] weight;
+
+	/** Partition found and its values in the variables of the formulation */
+	LabelledPartition partition;
+	MIPStartExpansion expansion;
 	
 	public static boolean onlyRoot = false;
 
+	/** True if the solution is improved by LocalSearch before being given to cplex */
+	public static boolean useLocalSearch = true;
+
 	public KClosestRepresentativesXY(PartitionXY p) throws IloException {
 		this.formulation = p;
 		rvg = new CallbackVariableGetter(formulation.getCplex(), this);
+		weight = LocalSearch.weights(p);
+		partition = new LabelledPartition(weight);
+		expansion = new MIPStartExpansion(p);
 	}
 
 
@@ -43,8 +56,6 @@ public class KClosestRepresentativesXY extends HeuristicCallback implements ICon
 
 		if(this.getNnodes() == 0 || !onlyRoot) {
 
-			this.sm = new SolutionManagerXY(formulation);
-
 			/* Create empty clusters */
 			ArrayList<ArrayList<Integer>> clusters = new ArrayList<ArrayList<Integer>>();
 
@@ -54,6 +65,9 @@ public class KClosestRepresentativesXY extends HeuristicCallback implements ICon
 				clusters.add(al);
 			}
 
+			/* Get the values of all the node cluster variables at once */
+			double[][] x = nodeClusterValues();
+
 			/* Find for each node its cluster */	
 
 			/* For each node */
@@ -62,12 +76,12 @@ public class KClosestRepresentativesXY extends HeuristicCallback implements ICon
 				/* Find its best cluster */
 				int bestCluster = 0;
 
-				double bestValue = rvg.getValue(formulation.nodeInClusterVar(i, 0));
+				double bestValue = x[i][0];
 
 				/* For each cluster */
 				for(int j = 1 ; j < formulation.maxClusterId ; ++j){
 
-					double v = rvg.getValue(formulation.nodeInClusterVar(i, j));
+					double v = x[i][j];
 
 					if(v > bestValue){
 						bestValue = v;
@@ -81,47 +95,79 @@ public class KClosestRepresentativesXY extends HeuristicCallback implements ICon
 
 			}
 
-			avoidEmptyClusters(clusters);
+			avoidEmptyClusters(clusters, x);
 
-			/* For each cluster */
-			for(int i = 0 ; i < clusters.size() ; i++){
+			if(useLocalSearch)
+				improveClusters(clusters);
 
-				List<Integer> cluster = clusters.get(i);
+			/* Cluster of each node (the clusters are renumbered in the order of their lowest node by the expansion) */
+			int[] label = new int[formulation.n()];
 
-				/* For each node in this cluster */
-				for(int j = 0 ; j < cluster.size() ; ++j) {
+			for(int c = 0 ; c < clusters.size() ; c++)
+				for(int i : clusters.get(c))
+					label[i] = c;
 
-					int nodeJ = cluster.get(j);
+			/* The expansion is shared by the threads which call the callback */
+			synchronized(expansion){
+				partition.setLabels(label);
+				this.setSolution(expansion.var, expansion.expand(partition), expansion.objective);
+			}
+		}
 
-					/* Set the node cluster variable to 1 */
-					sm.setNC(nodeJ, i, 1.0);
+	}
 
-					/* For each edge in the cluster */
-					for(int k = 0 ; k < j ; k++) {
 
-						/* Set the corresponding variable to 1 */
-						int nodeK = cluster.get(k);
-						sm.setEdge(nodeJ, nodeK, 1.0);
-					}
-				}
+	/**
+	 * Get the values of the node cluster variables in the current relaxation
+	 * @return Array which contains in position [i][k] the value of the variable associated to node i and cluster k
+	 * @throws IloException
+	 */
+	private double[][] nodeClusterValues() throws IloException {
 
-			}
+		int n = formulation.n();
+		int K = formulation.maxClusterId;
+		IloNumVar[] vars = new IloNumVar[n * K];
 
-			//
-//			System.out.println("Found int: " + Math.round(sm.evaluate()));
-			this.setSolution(sm.var, sm.val, sm.evaluate());
-		}
+		for(int i = 0 ; i < n ; ++i)
+			for(int k = 0 ; k < K ; ++k)
+				vars[i * K + k] = formulation.nodeInClusterVar(i, k);
+
+		double[] values = this.getValues(vars);
+		double[][] x = new double[n][K];
+
+		for(int i = 0 ; i < n ; ++i)
+			System.arraycopy(values, i * K, x[i], 0, K);
 
+		return x;
 	}
 
+	/**
+	 * Improve the clusters with LocalSearch (no cluster is left empty)
+	 * @param clusters
+	 */
+	private void improveClusters(ArrayList<ArrayList<Integer>> clusters) {
+
+		int[] label = new int[formulation.n()];
+
+		for(int c = 0 ; c < clusters.size() ; c++)
+			for(int i : clusters.get(c))
+				label[i] = c;
+
+		label = LocalSearch.improve(weight, formulation.maxClusterId, formulation.maxClusterId, label);
+
+		for(ArrayList<Integer> cluster : clusters)
+			cluster.clear();
+
+		for(int i = 0 ; i < formulation.n() ; ++i)
+			clusters.get(label[i]).add(i);
+	}
 
 	/**
 	 * For all clusters, if a cluster is empty, add a node into it.
 	 * @param clusters
-	 * @throws IloException 
-	 * @throws UnknownObjectException 
+	 * @param x Values of the node cluster variables
 	 */
-	private void avoidEmptyClusters(ArrayList<ArrayList<Integer>> clusters) throws UnknownObjectException, IloException {
+	private void avoidEmptyClusters(ArrayList<ArrayList<Integer>> clusters, double[][] x) {
 
 		/* List of the clusters to which we need to move a node */
 		List<Integer> emptyClusters = new ArrayList<>();
@@ -152,7 +198,7 @@ public class KClosestRepresentativesXY extends HeuristicCallback implements ICon
 
 				if(!unmovableNodes.contains(i)) {
 
-					double v = rvg.getValue(formulation.nodeInClusterVar(i, clusterId));
+					double v = x[i][clusterId];
 
 					if(v > bestValue) {
 						bestValue = v;
@@ -1,18 +1,14 @@
 package callback.heuristic_callback;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Random;
-import java.util.TreeSet;
-
 import callback.control_callback.IControlCallback;
 import formulation.PartitionXY2;
 import ilog.concert.IloException;
 import ilog.concert.IloNumVar;
 import ilog.cplex.IloCplex.HeuristicCallback;
-import mipstart.SolutionManagerXY;
+import mipstart.LabelledPartition;
+import mipstart.LocalSearch;
+import mipstart.MIPStartExpansion;
+import mipstart.RepresentativeSelection;
 import variable.CallbackVariableGetter;
 import variable.VariableGetter;
 
@@ -28,178 +24,60 @@ import variable.VariableGetter;
 public class KClosestRepresentativesXY2 extends HeuristicCallback implements IControlCallback{
 
 	PartitionXY2 formulation;
-	SolutionManagerXY sm;
 	private CallbackVariableGetter rvg;
+
+	/** Weights of the edges (see LocalSearch) */
+	double[][] weight;
+
+	/** Partition found and its values in the variables of the formulation */
+	LabelledPartition partition;
+	MIPStartExpansion expansion;
 	public static boolean isRoot = false;
 
 	public KClosestRepresentativesXY2(PartitionXY2 p) throws IloException {
 		this.formulation = p;
 		rvg = new CallbackVariableGetter(formulation.getCplex(), this);
+		weight = LocalSearch.weights(p);
+		partition = new LabelledPartition(weight);
+		expansion = new MIPStartExpansion(p);
 	}
 
 	public static boolean onlyRoot = true;
 
+	/** Number of randomized restarts performed at each call (see RepresentativeSelection) */
+	public static int restartNb = 1;
+
+	/** True if the solution is improved by LocalSearch before being given to cplex */
+	public static boolean useLocalSearch = true;
+
 	@Override
 	protected void main() throws IloException {
 
 
 		if(this.getNnodes() == 0 || !isRoot) {
-			this.sm = new SolutionManagerXY(formulation);
-
-			TreeSet<Integer> t = new TreeSet<Integer>(new Comparator<Integer>(){
-
+			/* The representative variable of node i is the variable associated to node i and cluster i */
+			IloNumVar[] repVar = new IloNumVar[formulation.n()];
 
-				Random random = new Random();
-				double rep2 = -1;
-
-				@Override
-				public int compare(Integer o1, Integer o2) {
-					try {
-						int v = (int) (getRep(o2) - getRep(o1));
-						if(v == 0)
-							v = 1;
-						return v;
-					} catch (IloException e) {
-						e.printStackTrace();
-						return 2;
-					}
-				}
-
-				public double getRep(int i) throws IloException {
-					return rvg.getValue(formulation.nodeInClusterVar(i, i));
-				}
-			});
-
-			/* Add all the nodes in the representative tree */
 			for(int i = 0 ; i < formulation.n() ; ++i)
-				t.add(i);
-
-			/* Find the K representative by taking the K first values of <t> */		
-			ArrayList<ArrayList<Integer>> clusters = new ArrayList<ArrayList<Integer>>();
-
-			Iterator<Integer> it = t.iterator();
-			int addedRep = 0;
-
-			List<Integer> representative = new ArrayList<>();
-
-			while(it.hasNext() && addedRep < formulation.KMax()){
-
-				int id = it.next();
-
-				/* Create a new cluster with the node <id> in it */
-				ArrayList<Integer> al = new ArrayList<Integer>();
-				al.add(id);
-				clusters.add(al);
-
-				representative.add(id);
-
-				addedRep ++;
-				//System.out.println("is representative : " + id);			
-			}
-
-
-
-
-			/* Find for each node its cluster */	
-
-			/* For each node */
-			for(int i = 0 ; i < formulation.n() ; ++i){
-
-				/* Find its best cluster */
-				int bestCluster = 0;
-
-				double bestValue = Double.MAX_VALUE;
-
-				/* If i is not the representative of the first cluster */
-				if(i != clusters.get(0).get(0))
-					bestValue = rvg.getValue(formulation.edgeVar(i, clusters.get(0).get(0)));
+				repVar[i] = formulation.nodeInClusterVar(i, i);
 
-				/* For each cluster */
-				for(int j = 0 ; j < formulation.KMax() ; ++j){
+			/* Select the representatives and the clusters from the values of the current relaxation */
+			RepresentativeSelection selection = new RepresentativeSelection(formulation, formulation, repVar, formulation.KMax());
+			selection.restartNb = restartNb;
+			selection.setValues(this.getValues(selection.nodeVar), this.getValues(selection.edgeVar));
+			selection.select();
 
-					/* Get the cluster */
-					ArrayList<Integer> al = clusters.get(j);
+			int[] label = selection.label;
 
-					/* Get the representative of the cluster */
-					int rep = al.get(0);
-
-					/* If <i> is the representative of cluster j */
-					if(i == rep){
-						bestValue = Double.MAX_VALUE;
-					}
-					else{
-						double v = rvg.getValue(formulation.edgeVar(i, rep));
-
-						if(v > bestValue){
-							bestValue = v;
-							bestCluster = j;
-						}
-					}
-				}
-
-				/* If i is not the representative of a cluster */
-				if(bestValue != Double.MAX_VALUE) {
-
-					/* Add i in the best cluster */
-					List<Integer> cluster = clusters.get(bestCluster);
-					cluster.add(i);
-
-					/* Update the representative if necessary */
-					if(representative.get(bestCluster) > i)
-						representative.set(bestCluster, i);
-
-				}
+			if(useLocalSearch)
+				label = LocalSearch.improve(weight, formulation.KMin(), formulation.KMax(), label);
 
+			/* Put each node in the cluster of its representative (i.e., the lowest node of its cluster) */
+			/* The expansion is shared by the threads which call the callback */
+			synchronized(expansion){
+				partition.setLabels(label);
+				this.setSolution(expansion.var, expansion.expand(partition), expansion.objective);
 			}
-
-			/* For each cluster */
-			for(int i = 0 ; i < clusters.size() ; i++){
-
-				List<Integer> cluster = clusters.get(i);
-
-				/* Get its representative ... */
-				int rep = representative.get(i);
-
-				/* ... and set it */
-				sm.setNC(i, i, 1.0);
-
-				it = cluster.iterator();
-
-				/* For each other element of the cluster */			
-				while(it.hasNext()) {
-
-					int node = it.next();
-
-					if(!(node == rep))
-
-						/* Set corresponding node cluster variable to 1 */
-						sm.setNC(node, rep, 1.0);
-				}
-
-
-			}
-
-
-			/* Set the edge variables of nodes inside the same cluster to 1 */
-			//		System.out.println("Clusters : ");		
-			/* For each cluster */
-
-			for(ArrayList<Integer> c : clusters){
-
-				//			System.out.println(c.toString());
-				for(int i = 0 ; i < c.size() ; ++i)
-					for(int j = 0 ; j < i ; ++j){
-
-						//					System.out.println(c.get(j) + " - " + c.get(i));
-
-
-						sm.setEdge(c.get(j), c.get(i), 1.0);
-					}
-			}
-			//
-//			System.out.println("Found int: " + Math.round(sm.evaluate()) + " (" + Math.round(sm.evaluate()) + ")");
-
-			this.setSolution(sm.var, sm.val, sm.evaluate());
 		}
 
 	}
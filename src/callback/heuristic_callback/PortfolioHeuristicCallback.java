@@ -0,0 +1,93 @@
+package callback.heuristic_callback;
+
+import callback.control_callback.IControlCallback;
+import formulation.PartitionWithRepresentative;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex.HeuristicCallback;
+import mipstart.LabelledPartition;
+import mipstart.MIPStartExpansion;
+import mipstart.PortfolioHeuristic;
+import variable.CallbackVariableGetter;
+import variable.VariableGetter;
+
+/**
+ * Give to cplex the best partition found by a PortfolioHeuristic running in background.
+ * 
+ * The partition is only given if it has changed since the last call and if it is better than the incumbent of cplex.
+ * 
+ * @author zach
+ * 
+ */
+public class PortfolioHeuristicCallback extends HeuristicCallback implements IControlCallback{
+
+	PartitionWithRepresentative formulation;
+	PortfolioHeuristic portfolio;
+	private CallbackVariableGetter rvg;
+
+	/** Partition given to cplex and its values in the variables of the formulation */
+	LabelledPartition partition;
+	MIPStartExpansion expansion;
+
+	/** Value of PortfolioHeuristic.improvementNb() when the last partition has been given to cplex */
+	private int lastImprovementNb = -1;
+
+	/** Number of partitions given to cplex */
+	public int publishedNb = 0;
+
+	public PortfolioHeuristicCallback(PartitionWithRepresentative p, PortfolioHeuristic portfolio) throws IloException {
+		this.formulation = p;
+		this.portfolio = portfolio;
+		rvg = new CallbackVariableGetter(formulation.getCplex(), this);
+		partition = new LabelledPartition(p);
+		expansion = new MIPStartExpansion(p);
+	}
+
+
+	@Override
+	protected void main() throws IloException {
+
+		int improvementNb = portfolio.improvementNb();
+
+		synchronized(this){
+			if(improvementNb == lastImprovementNb)
+				return;
+
+			lastImprovementNb = improvementNb;
+		}
+
+		int[] label = portfolio.bestLabel();
+
+		if(label == null || (this.hasIncumbent() && portfolio.bestObjective() >= this.getIncumbentObjValue() - 1E-6))
+			return;
+
+		/* The expansion is shared by the threads which call the callback */
+		synchronized(expansion){
+			partition.setLabels(label);
+			this.setSolution(expansion.var, expansion.expand(partition), expansion.objective);
+			publishedNb++;
+		}
+	}
+
+
+	@Override
+	public double getBestObjValuePublic() throws IloException {
+		return this.getBestObjValue();
+	}
+
+	@Override
+	public double getObjValuePublic() throws IloException {
+		return this.getObjValue();
+	}
+
+	@Override
+	public double getValuePublic(IloNumVar var) throws IloException{
+		return this.getValue(var);
+	}
+
+
+	@Override
+	public VariableGetter variableGetter() {
+		return rvg;
+	}
+}
@@ -31,10 +31,14 @@ public abstract class AbstractLazyCallback extends LazyConstraintCallback implem
 
 	protected void main() throws IloException {
 		
-		iterations++;
-		time -= formulation.getCplex().getCplexTime();
+		double t = -formulation.getCplex().getCplexTime();
 		separates();
-		time += formulation.getCplex().getCplexTime();
+		t += formulation.getCplex().getCplexTime();
+
+		synchronized(this){
+			iterations++;
+			time += t;
+		}
 		
 	}
 
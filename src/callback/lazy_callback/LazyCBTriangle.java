@@ -1,37 +1,153 @@
 package callback.lazy_callback;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import formulation.PartitionWithRepresentative;
-import formulation.interfaces.IFormulation;
 import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
 import ilog.cplex.IloCplex;
-import inequality_family.AbstractInequality;
 import inequality_family.Range;
-import separation.SeparationTriangle;
+import inequality_family.Triangle_Inequality;
 
+/**
+ * Lazy callback which adds the triangle inequalities violated by an integer solution.
+ *
+ * As the solution is integer, it satisfies all the triangle inequalities if and only if the edges such that x_ij = 1 form a set of cliques.
+ * Each connected component of these edges is explored by a breadth first search from its lowest node r (O(n) by node, thus O(n^2) for all the components):
+ * - each node v at depth 2 or more is not linked to the parent w of its parent u (they are at distance 2), the inequality x_uw + x_uv - x_vw <= 1 is violated;
+ * - for each pair of nodes (u, v) at depth 1 such that x_uv = 0, the inequality x_ru + x_rv - x_uv <= 1 is violated.
+ * If none of these inequalities exists, all the nodes of the component are at depth at most 1 and are linked to each other: the component is a clique.
+ * Consequently, no feasible solution is cut and no infeasible solution is accepted.
+ *
+ * The working arrays are allocated once by thread (see Buffer) such that the callback can be called by several threads.
+ *
+ * @author zach
+ *
+ */
 public class LazyCBTriangle extends AbstractLazyCallback{
 
-	SeparationTriangle sep;
-	
+	PartitionWithRepresentative p;
+
+	/** Maximal number of inequalities added at each call */
+	int MAX_CUT;
+
+	/** Number of nodes when the callback has been created (a new callback must be created if a node is added to the formulation) */
+	int n;
+
+	/** Edge variables (i, j) with i > j, in the order of the loops i = 1..n-1, j = 0..i-1 */
+	IloNumVar[] edgeVar;
+
+	/** Working arrays of the breadth first searches of a thread */
+	class Buffer{
+
+		int[] parent = new int[n];
+		int[] depth = new int[n];
+		int[] queue = new int[n];
+	}
+
+	ThreadLocal<Buffer> buffer = new ThreadLocal<Buffer>(){
+
+		@Override
+		protected Buffer initialValue() {
+			return new Buffer();
+		}
+	};
+
 	public LazyCBTriangle(PartitionWithRepresentative p, int MAX_CUT) {
 		super(p);
-//		IFormulationEdgeVarNodeVar formulation, VariableGetter vg, 
-		sep = new SeparationTriangle(p, this.variableGetter(), MAX_CUT);		
-	}
 
+		this.p = p;
+		this.MAX_CUT = MAX_CUT;
+		this.n = p.n;
+
+		edgeVar = new IloNumVar[n * (n - 1) / 2];
+		int v = 0;
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j){
+				edgeVar[v] = p.v_edge[i][j];
+				v++;
+			}
+	}
 
 	@Override
 	public void separates() throws IloException {
 
-		ArrayList<AbstractInequality<? extends IFormulation>> al = sep.separate();
-		
-		for(AbstractInequality<? extends IFormulation> i : al){
-			Range r = i.getRange();
-			this.add(formulation.getCplex().range(r.lbound, r.expr, r.ubound), IloCplex.CutManagement.UseCutPurge);
-		}
-		
-System.out.println(al.size() + " lazy triangle");
+		/* Get all the edge values at once */
+		double[] value = this.getValues(edgeVar);
+
+		Buffer b = buffer.get();
+		int[] parent = b.parent;
+		int[] depth = b.depth;
+		int[] queue = b.queue;
+
+		Arrays.fill(depth, -1);
+
+		int added = 0;
+
+		for(int r = 0 ; r < n && added < MAX_CUT ; ++r)
+			if(depth[r] == -1){
+
+				/* Breadth first search of the component of r */
+				depth[r] = 0;
+				parent[r] = r;
+				queue[0] = r;
+				int head = 0;
+				int tail = 1;
+
+				while(head < tail && added < MAX_CUT){
+
+					int u = queue[head];
+					head++;
+
+					for(int v = 0 ; v < n && added < MAX_CUT ; ++v)
+						if(depth[v] == -1 && isTogether(value, u, v)){
+
+							depth[v] = depth[u] + 1;
+							parent[v] = u;
+							queue[tail] = v;
+							tail++;
+
+							/* v is not linked to the parent of u */
+							if(depth[v] >= 2){
+								addTriangle(u, parent[u], v);
+								added++;
+							}
+						}
+				}
+
+				/* The nodes at depth 1 are in positions 1 to lastNeighbor of the queue */
+				int lastNeighbor = 0;
+
+				while(lastNeighbor + 1 < tail && depth[queue[lastNeighbor + 1]] == 1)
+					lastNeighbor++;
+
+				for(int a = 1 ; a <= lastNeighbor && added < MAX_CUT ; ++a)
+					for(int c = a + 1 ; c <= lastNeighbor && added < MAX_CUT ; ++c)
+						if(!isTogether(value, queue[a], queue[c])){
+							addTriangle(r, queue[a], queue[c]);
+							added++;
+						}
+			}
+	}
+
+	/**
+	 * @return True if the value of the edge variable (i, j) is 1
+	 */
+	private static boolean isTogether(double[] value, int i, int j){
+
+		if(i == j)
+			return false;
+
+		return i > j ? value[i * (i - 1) / 2 + j] > 0.5 : value[j * (j - 1) / 2 + i] > 0.5;
+	}
+
+	/**
+	 * Add the inequality x_ki + x_kj - x_ij <= 1
+	 */
+	private void addTriangle(int k, int i, int j) throws IloException{
+		Range r = new Triangle_Inequality(p, k, i, j).getRange();
+		this.add(formulation.getCplex().range(r.lbound, r.expr, r.ubound), IloCplex.CutManagement.UseCutPurge);
 	}
 
 }
@@ -1,8 +1,12 @@
 package cplex;
 
+import java.util.HashMap;
+import java.util.Iterator;
+
 import callback.cut_callback.CallbackRootRelaxation;
 import callback.presolve_callback.CallBackPresolveInfo;
 import ilog.concert.IloException;
+import ilog.concert.IloLPMatrix;
 import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumExpr;
 import ilog.concert.IloNumVar;
@@ -130,6 +134,10 @@ public class Cplex {
 		}
 	}
 
+	public int getNrows() {
+		return iloCplex.getNrows();
+	}
+
 	public double getNnodes() {
 		return iloCplex.getNnodes();
 	}
@@ -275,6 +283,14 @@ public class Cplex {
 		return iloCplex.getSlack(r);
 	}
 
+	public double[] getDuals(IloRange[] r) throws UnknownObjectException, IloException {
+		return iloCplex.getDuals(r);
+	}
+
+	public double[] getReducedCosts(IloNumVar[] v) throws UnknownObjectException, IloException {
+		return iloCplex.getReducedCosts(v);
+	}
+
 	public void remove(IloRange r) {
 		try {
 			iloCplex.remove(r);
@@ -291,4 +307,61 @@ public class Cplex {
 		}
 	}	
 
+	/**
+	 * Write the current model in a file (the format is given by the extension of the file, e.g., .sav or .mps)
+	 * @param file Path of the file
+	 */
+	public void exportModel(String file) {
+		try {
+			iloCplex.exportModel(file);
+		} catch (IloException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Replace the current model by the model of a file (see exportModel()).
+	 * The imported variables and constraints are obtained with importedVariables() and importedRanges().
+	 * @param file Path of the file
+	 * @throws IloException
+	 */
+	public void importModel(String file) throws IloException {
+		iloCplex.importModel(file);
+	}
+
+	/**
+	 * @return The variables of a model imported by importModel() indexed by their names
+	 * @throws IloException
+	 */
+	public HashMap<String, IloNumVar> importedVariables() throws IloException {
+
+		HashMap<String, IloNumVar> result = new HashMap<>();
+
+		/* An imported model is stored in IloLPMatrix objects */
+		Iterator<?> it = iloCplex.LPMatrixIterator();
+
+		while(it.hasNext())
+			for(IloNumVar v : ((IloLPMatrix)it.next()).getNumVars())
+				result.put(v.getName(), v);
+
+		return result;
+	}
+
+	/**
+	 * @return The constraints of a model imported by importModel() indexed by their names
+	 * @throws IloException
+	 */
+	public HashMap<String, IloRange> importedRanges() throws IloException {
+
+		HashMap<String, IloRange> result = new HashMap<>();
+		Iterator<?> it = iloCplex.LPMatrixIterator();
+
+		while(it.hasNext())
+			for(IloRange r : ((IloLPMatrix)it.next()).getRanges())
+				if(r.getName() != null)
+					result.put(r.getName(), r);
+
+		return result;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package cplex;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+
+/**
+ * Local cache of the models created by the formulations (see Param.modelCacheDirectory).
+ *
+ * Once a formulation has created its model, the model is exported in a SAV file (cplex binary format which keeps the names of the variables and of the constraints).
+ * The name of the file is the name of the formulation followed by a hash of:
+ * - the values of the fields of the parameters which change the model (the fields which only set cplex parameters are ignored, see IGNORED_FIELDS);
+ * - the values read in the input file (such that two input files with the same content share the same model);
+ * - the sizes of the problem (e.g., the number of nodes).
+ *
+ * A formulation created later with the same parameters and the same data imports this file instead of creating its model.
+ * The variables of the formulation are then retrieved from the imported model by their names (see Cplex.importedVariables()).
+ *
+ * @author zach
+ *
+ */
+public class ModelCache {
+
+	/** Fields of the parameters which are not used to create the model */
+	static final Set<String> IGNORED_FIELDS = new HashSet<>(Arrays.asList(
+			"cplex", "inputFile", "modelCacheDirectory", "nameVariables",
+			"cplexOutput", "useCplexPrimalDual", "useCplexAutoCuts", "tilim", "threads"));
+
+	/**
+	 * Get the file which contains the model of a formulation
+	 * @param directory Directory of the cache
+	 * @param formulationName Name of the formulation (e.g., the name of its class)
+	 * @param param Parameters of the formulation
+	 * @param data Values read in the input file (once modified by the formulation, e.g., with gapDiss)
+	 * @param sizes Sizes of the problem
+	 * @return The file (which may not exist yet) ; null if no hash can be computed
+	 */
+	public static File file(String directory, String formulationName, Object param, double[][] data, int... sizes){
+
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+
+			/* Parameters (sorted by name since the order of the fields of a class is not specified) */
+			ArrayList<String> fields = new ArrayList<>();
+
+			for(Class<?> c = param.getClass() ; c != null ; c = c.getSuperclass())
+				for(Field f : c.getDeclaredFields())
+					if(!Modifier.isStatic(f.getModifiers()) && !IGNORED_FIELDS.contains(f.getName())){
+						f.setAccessible(true);
+						fields.add(c.getSimpleName() + "." + f.getName() + "=" + Arrays.deepToString(new Object[]{f.get(param)}));
+					}
+
+			Collections.sort(fields);
+
+			for(String s : fields)
+				md.update(s.getBytes());
+
+			/* Sizes */
+			md.update(Arrays.toString(sizes).getBytes());
+
+			/* Data */
+			for(double[] row : data){
+				ByteBuffer buffer = ByteBuffer.allocate(8 * row.length);
+
+				for(double v : row)
+					buffer.putDouble(v);
+
+				md.update(buffer.array());
+			}
+
+			StringBuilder hash = new StringBuilder();
+
+			for(byte b : md.digest())
+				hash.append(String.format("%02x", b));
+
+			return new File(directory, formulationName + "_" + hash + ".sav");
+
+		} catch (NoSuchAlgorithmException | IllegalAccessException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Get a variable of an imported model
+	 *
+	 * A variable which does not appear in any constraint nor in the objective is not exported.
+	 * In that case it is created again (which is equivalent since it is not constrained).
+	 *
+	 * @param cplex The cplex in which the model has been imported
+	 * @param variables The variables of the imported model indexed by their names (see Cplex.importedVariables())
+	 * @param name The name of the variable
+	 * @param isInt True if the variable is an integer variable
+	 * @param ub Upper bound of the variable (its lower bound is 0)
+	 * @return The variable
+	 * @throws IloException
+	 */
+	public static IloNumVar variable(Cplex cplex, HashMap<String, IloNumVar> variables, String name, boolean isInt, double ub) throws IloException{
+
+		IloNumVar v = variables.get(name);
+
+		if(v == null){
+
+			if(isInt)
+				v = cplex.iloCplex.intVar(0, (int)ub);
+			else
+				v = cplex.iloCplex.numVar(0, ub);
+
+			v.setName(name);
+		}
+
+		return v;
+	}
+
+}
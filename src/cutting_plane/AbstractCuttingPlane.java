@@ -1,19 +1,27 @@
 package cutting_plane;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 
 import formulation.Param;
+import formulation.Partition;
 import formulation.PartitionWithRepresentative;
+import formulation.interfaces.IFEdgeV;
+import formulation.interfaces.IFEdgeVNodeVClusterNbEdgeW;
 import formulation.interfaces.IFormulation;
 import ilog.concert.IloException;
 import ilog.concert.IloRange;
 import ilog.cplex.IloCplex;
 import inequality_family.AbstractInequality;
 import mipstart.AbstractMIPStartGetter;
+import mipstart.PortfolioHeuristic;
 import mipstart.SolutionManagerRepresentative;
 import results.CPResult;
+import results.CPTelemetry;
 import results.ComputeResults;
+import variable.SnapshotVariableGetter;
 
 public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
@@ -21,6 +29,45 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 	public CPResult cpresult;
 
+	/** Inequalities added to the model during the cutting plane step (used to evaluate all their slacks at once) */
+	public CutPool cutPool = new CutPool();
+
+	/** Policy used to remove the inactive inequalities from the model (if null, all the untight inequalities are removed each time <minimalTimeBeforeRemovingUntightCut> is reached) */
+	public CutPurgePolicy purgePolicy = null;
+
+	/** Detector used to stop the cutting plane step when the relaxation tails off (if null, the step is stopped when the relaxation is not improved by 1E-2 during tilim/20 seconds) */
+	public TailingOffDetector tailingOffDetector = null;
+
+	/** If not null, a record is written for each iteration of the cutting plane step */
+	public CPTelemetry telemetry = null;
+
+	/** If not null, the inequalities of the library violated by the first relaxation are added before the first separation and the inequalities found are added to the library at the end of the cutting plane step */
+	public CutLibrary cutLibrary = null;
+
+	/** If greater than 0, the slow separation methods are performed in background threads while the next relaxations are solved (see BackgroundSeparation) */
+	public int backgroundSeparationThreadNb = 0;
+
+	/** If not null, a checkpoint of the cutting plane step is periodically written (see CPCheckpoint) */
+	public CPCheckpoint checkpoint = null;
+
+	/** True if variables are fixed by reduced cost before the branch and cut (see ReducedCostFixing) */
+	public boolean useReducedCostFixing = false;
+
+	/** Fixings computed at the end of the cutting plane step (null if no fixing has been computed) ; must be applied by findIntSolutionAfterCP() */
+	public ReducedCostFixing reducedCostFixing = null;
+
+	/** If greater than 0, a PortfolioHeuristic with this number of workers runs in background during the cutting plane step and the branch and cut */
+	public int portfolioThreadNb = 0;
+
+	/** Portfolio heuristic running in background (null if none is used) ; its best partition should be given to cplex by findIntSolutionAfterCP() */
+	public PortfolioHeuristic portfolio = null;
+
+	/** Cluster of each node in a partition known before the cutting plane step (e.g., found by MultilevelHeuristic) ; null if there is none */
+	public int[] initialPartition = null;
+
+	/** Checkpoint from which the cutting plane step is resumed (null if the step starts from scratch) */
+	CPCheckpoint resumedCheckpoint = null;
+
 	Double minimalTimeBeforeRemovingUntightCut = Double.MAX_VALUE;
 	Integer modFindIntSolution = Integer.MAX_VALUE;
 
@@ -54,6 +101,9 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 		this.formulation = getFormulation();
 		createSeparationAlgorithm();
 
+		if(formulation instanceof Partition)
+			cpresult.buildTime = ((Partition)formulation).buildTime;
+
 		cpresult.cp_time = -formulation.getCplex().getCplexTime();
 
 		try {
@@ -62,6 +112,16 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 			e1.printStackTrace();
 		}
 
+		BackgroundSeparation background = null;
+
+		if(backgroundSeparationThreadNb > 0)
+			background = new BackgroundSeparation(formulation, backgroundSeparationThreadNb);
+
+		if(portfolioThreadNb > 0 && formulation instanceof IFEdgeVNodeVClusterNbEdgeW){
+			portfolio = new PortfolioHeuristic((IFEdgeVNodeVClusterNbEdgeW)formulation, portfolioThreadNb);
+			portfolio.start(initialPartition);
+		}
+
 		boolean cutFound = true;	
 		boolean isInteger = false;
 		double last_cp_relaxation = -Double.MAX_VALUE;
@@ -69,12 +129,52 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 		double bestInt = Double.MAX_VALUE;
 		SolutionManagerRepresentative bestMIP = null;
 
+		/* Use the initial partition as the first integer solution */
+		if(initialPartition != null && formulation instanceof IFEdgeVNodeVClusterNbEdgeW)
+			try {
+				bestMIP = new SolutionManagerRepresentative((IFEdgeVNodeVClusterNbEdgeW)formulation);
+				bestMIP.setLabels(initialPartition);
+				bestInt = bestMIP.evaluate();
+			} catch (IloException e) {
+				e.printStackTrace();
+				bestMIP = null;
+			}
+
 		try {
+
+			/* Add the inequalities of the checkpoint before the first resolution */
+			if(resumedCheckpoint != null && formulation instanceof IFEdgeV)
+				addInequalitiesByFamily(resumedCheckpoint.getInequalities((IFEdgeV)formulation));
+
 			formulation.getCplex().solve();
 
 			cpresult.cp_first_relaxation = formulation.getCplex().getObjValue();
 			cpresult.cp_iteration = 0;
 
+			/* Restore the counters and the best integer solution of the checkpoint */
+			if(resumedCheckpoint != null){
+
+				cpresult.cp_first_relaxation = resumedCheckpoint.firstRelaxation;
+				cpresult.cp_iteration = resumedCheckpoint.iteration;
+				cpresult.cp_time -= resumedCheckpoint.elapsedTime;
+
+				if(resumedCheckpoint.bestMIP != null && formulation instanceof IFEdgeVNodeVClusterNbEdgeW){
+
+					SolutionManagerRepresentative mip = new SolutionManagerRepresentative((IFEdgeVNodeVClusterNbEdgeW)formulation);
+
+					if(mip.val.length == resumedCheckpoint.bestMIP.length){
+						System.arraycopy(resumedCheckpoint.bestMIP, 0, mip.val, 0, mip.val.length);
+						bestMIP = mip;
+						bestInt = mip.evaluate();
+					}
+				}
+
+				resumedCheckpoint = null;
+			}
+
+			if(cutLibrary != null)
+				addLibraryInequalities();
+
 			/* Maximal time in seconds given to the cutting plane step to improve the relaxation by at least 0.01%
 			 * After that the cutting plane step is stopped (and the branch and cut takes place)
 			 */
@@ -103,9 +203,13 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 			while(cutFound && !optimumFound && !max_time_for_relaxation_improvement_reached){ 
 
 				/* Compute the relaxation */
-				formulation.getCplex().solve();
+				double lpTime = formulation.getCplex().solve();
 				toAdd = new ArrayList<>();
 				cutFound = false;
+				int removedCutNb = 0;
+
+				if(telemetry != null)
+					telemetry.startIteration();
 
 				/* No separation algorithm has yet found any cut at this iteration */
 				Iterator<CP_Separation<?>> algo = sep.iterator();
@@ -115,20 +219,39 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 
 				// Remove variables (part 1/2)
-				if(formulation.getCplex().getCplexTime()+last_removing_cuts_time > minimalTimeBeforeRemovingUntightCut){
+				if(purgePolicy == null && formulation.getCplex().getCplexTime()+last_removing_cuts_time > minimalTimeBeforeRemovingUntightCut){
 					//			if(cpresult.cp_iteration % minimalTimeBeforeRemovingUntightCut == 0){	
 
 					max_time_for_cut_removing_reached = true;
 					toRemove= new ArrayList<IloRange>();
 
+					HashSet<AbstractInequality<?>> tight = cutPool.tightInequalities(formulation.variableGetter());
+					HashSet<AbstractInequality<?>> removed = new HashSet<>();
+
 					for(CP_Separation<?> si : sep)
 						for(int i = si.addedIneq.size()-1 ; i >= 0 ; --i){
 							AbstractInequality<?> ai = si.addedIneq.get(i);
-							if(!ai.isTight(formulation.variableGetter())){
+							if(!isTight(ai, tight)){
 								toRemove.add(ai.ilorange);
+								removed.add(ai);
 								si.remove(i);
 							}
-						}				
+						}
+
+					cutPool.remove(removed);
+				}
+
+				/* Update the activity of the inequalities and add back the evicted inequalities which are violated */
+				if(purgePolicy != null){
+
+					purgePolicy.updateAges(cutPool, formulation.variableGetter(), formulation.getCplex());
+
+					ArrayList<AbstractInequality<?>> readded = purgePolicy.getViolatedEvictedInequalities(formulation.variableGetter());
+
+					if(readded.size() > 0){
+						toAdd.addAll(readded);
+						cutFound = true;
+					}
 				}
 
 				/* Remaining cutting plane time */
@@ -160,7 +283,14 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 							ArrayList<AbstractInequality<? extends IFormulation>> r;
 
+							double separationTime = -formulation.getCplex().getCplexTime();
+							cp.se.setTimeBudget(tilim == -1.0 ? -1.0 : Math.max(0.0, remainingTime));
 							r = cp.se.separate();
+							cp.se.clearDeadline();
+							separationTime += formulation.getCplex().getCplexTime();
+
+							if(telemetry != null)
+								telemetry.addSeparation(cp.se.name, separationTime, r.size());
 
 							if(r.size() > 0){
 								tagInequality(r, methode);
@@ -205,6 +335,9 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 								bestMIP = new_mip;
 							}
 
+							if(portfolio != null)
+								portfolio.offer(new_mip.labels());
+
 						} catch (IloException e) {
 							e.printStackTrace();
 						}
@@ -217,7 +350,13 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 				double gapFromLastImprovedRelaxation = ComputeResults.improvement(last_improved_relaxation, last_cp_relaxation);
 				double time_since_last_improvement = last_relaxation_improvement_time + formulation.getCplex().getCplexTime();
 //							System.out.println("\n time/gap since last relaxation improvement: " + Math.round(time_since_last_improvement) + "s " + ComputeResults.doubleToString(gapFromLastImprovedRelaxation, 4) + "%");
-				if(gapFromLastImprovedRelaxation > 1E-2){
+				if(tailingOffDetector != null){
+					tailingOffDetector.add(formulation.getCplex().getCplexTime() + cpresult.cp_time, last_cp_relaxation);
+
+					if(tailingOffDetector.isTailingOff(tilim == -1.0 ? -1.0 : Math.max(0.0, remainingTime)))
+						max_time_for_relaxation_improvement_reached = true;
+				}
+				else if(gapFromLastImprovedRelaxation > 1E-2){
 					last_improved_relaxation = last_cp_relaxation;
 					last_relaxation_improvement_time = -formulation.getCplex().getCplexTime();
 				}
@@ -245,6 +384,12 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 				//			if(!optimumFound && !cutFound){
 				if(!optimumFound && !max_time_for_relaxation_improvement_reached){
 
+					/* Snapshot of the current relaxation used by the separation methods performed in background */
+					SnapshotVariableGetter snapshot = null;
+
+					/* Add the inequalities found in background which are violated by the current relaxation */
+					if(background != null && addBackgroundInequalities(background, false, toAdd))
+						cutFound = true;
 
 					int methode = 0;
 
@@ -256,11 +401,31 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 							CP_Separation<?> sep_i = sep.get(methode);
 
+							/* If the separation method is performed in background, start it on the current relaxation if it is not already running */
+							if(background != null && background.handles(sep_i)){
+
+								if(!background.isRunning(sep_i)){
+
+									if(snapshot == null)
+										snapshot = background.snapshot(formulation.variableGetter());
+
+									background.submit(sep_i, snapshot, tilim == -1.0 ? -1.0 : remainingTime);
+								}
+							}
+
 							/* If the separation method has not yet been used in this iteration */
 							//						if(!sep_i.usedAtThisIteration){
-							if(!sep_i.usedAtThisIteration && (!cutFound || sep_i.isQuick)){
+							else if(!sep_i.usedAtThisIteration && (!cutFound || sep_i.isQuick)){
 
+								/* Share the remaining time between the separation methods which have not yet been tested in this iteration */
+								double separationTime = -formulation.getCplex().getCplexTime();
+								sep_i.se.setTimeBudget(tilim == -1.0 ? -1.0 : remainingTime / (sep.size() - methode));
 								ArrayList<AbstractInequality<?>> r = sep_i.se.separate();
+								sep_i.se.clearDeadline();
+								separationTime += formulation.getCplex().getCplexTime();
+
+								if(telemetry != null)
+									telemetry.addSeparation(sep_i.se.name, separationTime, r.size());
 
 								if(r.size() > 0){
 									tagInequality(r, methode);
@@ -294,6 +459,23 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 //									System.out.print("lim: " + cptilim + " actuel: " + (formulation.getCplex().getCplexTime() + cpresult.cp_time));
 
+					/* If no cut has been found, wait for the separation methods performed in background
+					 * (the methods which were performed on a previous relaxation are then performed on the current one) */
+					while(background != null && !cutFound && background.hasRunningTask()){
+
+						cutFound = addBackgroundInequalities(background, true, toAdd);
+
+						if(!cutFound && (remainingTime > 0 || tilim == -1.0)){
+
+							if(snapshot == null)
+								snapshot = background.snapshot(formulation.variableGetter());
+
+							for(CP_Separation<?> sep_i : sep)
+								if(background.handles(sep_i))
+									background.submit(sep_i, snapshot, tilim == -1.0 ? -1.0 : remainingTime);
+						}
+					}
+
 									if(!cutFound)
 										System.out.println("\n--- No cut found ---");	
 
@@ -302,11 +484,16 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 				addInequality(toAdd);
 
+				/* Evict the inactive inequalities (only if new inequalities have been added, otherwise the cutting plane step is over) */
+				if(purgePolicy != null && cutFound)
+					removedCutNb += purgePolicy.purge(sep, cutPool, formulation.getCplex());
+
 				// Remove variables (part 2/2)
 				if(max_time_for_cut_removing_reached && cutFound)		{	
 					//			if(cpresult.cp_iteration % minimalTimeBeforeRemovingUntightCut == 0 && cutFound)		{	
 					for(IloRange i: toRemove)
 						formulation.getCplex().remove(i);
+					removedCutNb += toRemove.size();
 					//				ComputeResults.log(toRemove.size() + " ineq removed");
 
 //									System.out.print( " : " + toRemove.size() + " ineq removed");
@@ -316,8 +503,14 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 //							System.out.println();
 
+				if(telemetry != null)
+					telemetry.endIteration(cpresult.cp_iteration, formulation.getCplex().getCplexTime() + cpresult.cp_time, lpTime, removedCutNb, formulation.getCplex().getNrows(), last_cp_relaxation, bestInt);
+
 				cpresult.cp_iteration++;
 
+				if(checkpoint != null && formulation instanceof IFEdgeV && checkpoint.isDue(formulation.getCplex().getCplexTime() + cpresult.cp_time))
+					checkpoint.write(sep, (IFEdgeV)formulation, cpresult, formulation.getCplex().getCplexTime() + cpresult.cp_time, last_cp_relaxation, bestInt, bestMIP);
+
 
 			}
 
@@ -325,6 +518,9 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 			e1.printStackTrace();
 		}
 
+		if(background != null)
+			background.shutdown();
+
 //				System.out.print("Optimum found: ");
 //				System.out.println(optimumFound);
 //				System.out.print("Slow gap improvement: ");
@@ -340,6 +536,11 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 		cpresult.cp_time += formulation.getCplex().getCplexTime();
 
+		if(cutLibrary != null && formulation instanceof IFEdgeV){
+			cutLibrary.add(sep, (IFEdgeV)formulation);
+			cutLibrary.save();
+		}
+
 		//		rep.displayAllCoefficientSolution();
 
 		/* Set the remaining time for cplex in the second step (in the case cplex is used in the second phase) */
@@ -375,6 +576,27 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 		}
 		else{
 						System.out.println("\nSolution is not integer after cp");
+
+			/* Get the best solution of the portfolio heuristic */
+			if(portfolio != null && portfolio.bestObjective() < bestInt)
+				try {
+					bestMIP = portfolio.getBestSolution((IFEdgeVNodeVClusterNbEdgeW)formulation);
+					bestInt = bestMIP.evaluate();
+				} catch (IloException e) {
+					e.printStackTrace();
+				}
+
+			/* Fix the variables whose reduced cost exceeds the gap between the relaxation and the best integer solution */
+			if(useReducedCostFixing && bestMIP != null && formulation instanceof IFEdgeV)
+				try {
+					reducedCostFixing = new ReducedCostFixing((IFEdgeV)formulation, formulation.getCplex(), last_cp_relaxation, bestInt);
+					cpresult.rc_fixed_variables = reducedCostFixing.fixedNb;
+				} catch (IloException e) {
+
+					/* The reduced costs are not available (e.g., inequalities have been added since the last resolution) */
+					reducedCostFixing = null;
+				}
+
 			findIntSolutionAfterCP(tilim == -1 ? -1 : tilim - cpresult.cp_time, bestMIP);
 
 //						System.out.println("CP relaxation: " + last_cp_relaxation + " BC relaxation: " + cpresult.bestRelaxation);
@@ -382,6 +604,8 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 				cpresult.bestRelaxation = last_cp_relaxation;
 		}
 
+		if(portfolio != null)
+			portfolio.stop();
 
 		cpresult.firstRelaxation = last_cp_relaxation;
 		//		cpresult.log();
@@ -406,6 +630,89 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 	public abstract AbstractMIPStartGetter getMIPSolution();
 
+	/**
+	 * Get the inequalities found by the separation methods performed in background and keep those which are violated by the current relaxation
+	 * @param background The separation methods performed in background
+	 * @param wait True if the method waits until all the running separation methods are over
+	 * @param toAdd List in which the violated inequalities are added
+	 * @return True if at least one violated inequality has been found
+	 * @throws IloException
+	 */
+	private boolean addBackgroundInequalities(BackgroundSeparation background, boolean wait, ArrayList<AbstractInequality<? extends IFormulation>> toAdd) throws IloException{
+
+		boolean found = false;
+
+		for(BackgroundSeparation.Result res : background.collect(wait)){
+
+			ArrayList<AbstractInequality<? extends IFormulation>> violated = new ArrayList<>();
+
+			for(AbstractInequality<?> ai : res.inequalities)
+				if(ai.getSlack(formulation.variableGetter()) < -background.violationEps)
+					violated.add(ai);
+
+			if(telemetry != null)
+				telemetry.addSeparation(res.separation.se.name, res.time, violated.size());
+
+			if(violated.size() > 0){
+				tagInequality(violated, sep.indexOf(res.separation));
+				toAdd.addAll(violated);
+				found = true;
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Add to the model the inequalities of the library which are violated by the current relaxation (see addInequalitiesByFamily()).
+	 * @throws IloException
+	 */
+	private void addLibraryInequalities() throws IloException{
+
+		if(!(formulation instanceof IFEdgeV))
+			return;
+
+		addInequalitiesByFamily(cutLibrary.getViolatedInequalities((IFEdgeV)formulation, formulation.variableGetter()));
+	}
+
+	/**
+	 * Add inequalities to the model.
+	 * Each inequality is associated to the first separation family with the same name (it is ignored if there is no such family).
+	 * @param inequalities For each separation family name, the inequalities to add
+	 */
+	private void addInequalitiesByFamily(HashMap<String, ArrayList<AbstractInequality<?>>> inequalities){
+
+		for(CP_Separation<?> si : sep){
+
+			ArrayList<AbstractInequality<?>> r = inequalities.remove(si.se.name);
+
+			if(r != null){
+				si.addedIneq.addAll(r);
+				addInequality(r);
+			}
+		}
+	}
+
+	/**
+	 * Resume a cutting plane step from a checkpoint.
+	 * The model is rebuilt with the inequalities of the checkpoint and the cutting plane step continues with the counters, the best integer solution and the remaining time of the checkpoint.
+	 * If the checkpoint cannot be read, the cutting plane step starts from scratch.
+	 * The checkpoint keeps being updated during the resumed step.
+	 * @param checkpoint The checkpoint
+	 * @return See solve()
+	 */
+	public double resume(CPCheckpoint checkpoint){
+
+		if(checkpoint.read())
+			resumedCheckpoint = checkpoint;
+		else
+			System.err.println("Checkpoint " + checkpoint.file + " not found, the cutting plane starts from scratch");
+
+		this.checkpoint = checkpoint;
+
+		return solve();
+	}
+
 
 	public void tagInequality(ArrayList<AbstractInequality<? extends IFormulation>> r, int idSep){
 
@@ -423,6 +730,7 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 		for(AbstractInequality<? extends IFormulation> ri : r)
 			try {
 				ri.ilorange = formulation.getCplex().addRange(ri.getRange());
+				cutPool.add(ri);
 			} catch (IloException e) {
 				e.printStackTrace();
 			}
@@ -457,10 +765,18 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 		ArrayList<AbstractInequality<?>> result = new ArrayList<>();
 
+		HashSet<AbstractInequality<?>> tight = null;
+
+		try {
+			tight = cutPool.tightInequalities(formulation.variableGetter());
+		} catch (IloException e) {
+			e.printStackTrace();
+		}
+
 		for(CP_Separation<?> si : sep)
 			if(si.toAddInBB){		
 				for(AbstractInequality<?> i : si.addedIneq){					
-					if(i.isTight(formulation.variableGetter())){		
+					if(isTight(i, tight)){		
 						result.add(i);
 					}
 				}
@@ -468,7 +784,23 @@ public abstract class AbstractCuttingPlane<Formulation extends IFormulation> {
 
 		return result;
 
-	}	
+	}
+
+	/**
+	 * Test if an inequality is tight in the current relaxation
+	 * @param ai The inequality
+	 * @param tight The tight inequalities of the cut pool (null if they could not be computed)
+	 * @return True if the inequality reaches its bound
+	 */
+	private boolean isTight(AbstractInequality<?> ai, HashSet<AbstractInequality<?>> tight){
+
+		/* If the inequality is not in the pool, its slack is computed term by term */
+		if(tight == null || !cutPool.contains(ai))
+			return ai.isTight(formulation.variableGetter());
+		else
+			return tight.contains(ai);
+	}
+
 	public ArrayList<AbstractInequality<?>> getAllConstraints(){
 
 		ArrayList<AbstractInequality<?>> result = new ArrayList<>();
@@ -0,0 +1,232 @@
+package cutting_plane;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import formulation.interfaces.IFEdgeV;
+import formulation.interfaces.IFNodeV;
+import formulation.interfaces.IFormulation;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import inequality_family.AbstractInequality;
+import variable.SnapshotVariableGetter;
+import variable.VariableGetter;
+
+/**
+ * Perform the slow separation methods of a cutting plane in background threads.
+ *
+ * A separation method is performed on a snapshot of a relaxation (see SnapshotVariableGetter) so that cplex can solve the next relaxations in the meantime.
+ * Once a method is over, the inequalities it found must be checked against the current relaxation before being added (see AbstractCuttingPlane.solve()).
+ *
+ * A separation method can only be handled if it only reads the edge and node variables of the formulation.
+ *
+ * @author zach
+ *
+ */
+public class BackgroundSeparation {
+
+	/** An inequality found in background is added if its slack in the current relaxation is lower than this value */
+	public double violationEps = 1E-4;
+
+	ExecutorService executor;
+
+	/** Variables saved in the snapshots */
+	IloNumVar[] variables;
+
+	/** Separation methods currently performed in background */
+	LinkedHashMap<CP_Separation<?>, Task> running = new LinkedHashMap<>();
+
+	/** Snapshot on which each separation method has been performed for the last time */
+	HashMap<CP_Separation<?>, SnapshotVariableGetter> lastSnapshot = new HashMap<>();
+
+	class Task{
+
+		CP_Separation<?> separation;
+		Future<ArrayList<AbstractInequality<?>>> future;
+
+		/** Variable getter of the separation method before it has been replaced by the snapshot */
+		VariableGetter originalVg;
+
+		/** Time spent in the separation (in seconds) */
+		volatile double time = 0.0;
+	}
+
+	/**
+	 * Inequalities found by a separation method performed in background
+	 */
+	public class Result{
+
+		public CP_Separation<?> separation;
+		public ArrayList<AbstractInequality<?>> inequalities;
+		public double time;
+
+		Result(Task t, ArrayList<AbstractInequality<?>> inequalities){
+			this.separation = t.separation;
+			this.inequalities = inequalities;
+			this.time = t.time;
+		}
+	}
+
+	/**
+	 * @param formulation The formulation whose relaxations are separated
+	 * @param threadNb Number of threads used to perform the separation methods
+	 */
+	public BackgroundSeparation(IFormulation formulation, int threadNb){
+
+		executor = Executors.newFixedThreadPool(threadNb, new ThreadFactory(){
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "background separation");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		ArrayList<IloNumVar> vars = new ArrayList<>();
+
+		try {
+			if(formulation instanceof IFEdgeV){
+				IFEdgeV f = (IFEdgeV)formulation;
+
+				for(int i = 1 ; i < f.n() ; ++i)
+					for(int j = 0 ; j < i ; ++j)
+						vars.add(f.edgeVar(i, j));
+			}
+
+			if(formulation instanceof IFNodeV){
+				IFNodeV f = (IFNodeV)formulation;
+
+				for(int i = 0 ; i < f.n() ; ++i)
+					if(f.nodeVar(i) != null)
+						vars.add(f.nodeVar(i));
+			}
+		} catch (IloException e) {
+			e.printStackTrace();
+		}
+
+		variables = vars.toArray(new IloNumVar[vars.size()]);
+	}
+
+	/**
+	 * Test if a separation method is performed in background
+	 * (only the slow methods whose inequalities are kept in the branch and cut are, the other are performed in the main thread)
+	 */
+	public boolean handles(CP_Separation<?> cps){
+		return !cps.isQuick && cps.toAddInBB;
+	}
+
+	public boolean isRunning(CP_Separation<?> cps){
+		return running.containsKey(cps);
+	}
+
+	public boolean hasRunningTask(){
+		return !running.isEmpty();
+	}
+
+	/**
+	 * Create a snapshot of the current relaxation
+	 * @param vg Variable getter which provides the current relaxation
+	 * @throws IloException
+	 */
+	public SnapshotVariableGetter snapshot(VariableGetter vg) throws IloException{
+		return new SnapshotVariableGetter(vg, variables);
+	}
+
+	/**
+	 * Start a separation method in background (if it is not already running and if it has not already been performed on this snapshot)
+	 * @param cps The separation method
+	 * @param snapshot The relaxation to separate
+	 * @param budget Time budget of the separation in seconds (-1 if there is no limit)
+	 * @return True if the separation has been started
+	 */
+	public boolean submit(final CP_Separation<?> cps, SnapshotVariableGetter snapshot, double budget){
+
+		if(isRunning(cps) || lastSnapshot.get(cps) == snapshot)
+			return false;
+
+		final Task t = new Task();
+		t.separation = cps;
+		t.originalVg = cps.se.getVariableGetter();
+
+		cps.se.setVariableGetter(snapshot);
+		cps.se.setTimeBudget(budget);
+
+		t.future = executor.submit(new Callable<ArrayList<AbstractInequality<?>>>(){
+
+			@Override
+			public ArrayList<AbstractInequality<?>> call() throws Exception {
+
+				long start = System.nanoTime();
+				ArrayList<AbstractInequality<?>> result = new ArrayList<>();
+				result.addAll(cps.se.separate());
+				t.time = (System.nanoTime() - start) / 1E9;
+
+				return result;
+			}
+		});
+
+		running.put(cps, t);
+		lastSnapshot.put(cps, snapshot);
+
+		return true;
+	}
+
+	/**
+	 * Get the inequalities found by the separation methods which are over
+	 * @param wait True if the method waits until all the running separation methods are over
+	 * @return The inequalities found by each separation method over
+	 */
+	public ArrayList<Result> collect(boolean wait){
+
+		ArrayList<Result> result = new ArrayList<>();
+		Iterator<Map.Entry<CP_Separation<?>, Task>> it = running.entrySet().iterator();
+
+		while(it.hasNext()){
+
+			Task t = it.next().getValue();
+
+			if(wait || t.future.isDone()){
+
+				ArrayList<AbstractInequality<?>> inequalities;
+
+				try {
+					inequalities = t.future.get();
+				} catch (InterruptedException | ExecutionException e) {
+					e.printStackTrace();
+					inequalities = new ArrayList<>();
+				}
+
+				t.separation.se.setVariableGetter(t.originalVg);
+				t.separation.se.clearDeadline();
+				it.remove();
+
+				result.add(new Result(t, inequalities));
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Stop all the running separation methods and the threads
+	 */
+	public void shutdown(){
+
+		for(CP_Separation<?> cps : running.keySet())
+			cps.se.cancel();
+
+		collect(true);
+		executor.shutdown();
+	}
+
+}
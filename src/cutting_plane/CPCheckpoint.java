@@ -0,0 +1,238 @@
+package cutting_plane;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import formulation.interfaces.IFEdgeV;
+import formulation.interfaces.IFNodeV;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import inequality_family.AbstractInequality;
+import inequality_family.SparseInequality;
+import mipstart.SolutionManagerRepresentative;
+import results.CPResult;
+
+/**
+ * Checkpoint of a cutting plane step.
+ *
+ * A checkpoint contains:
+ * - the inequalities in the model (stored as in CutLibrary, with the name of their separation family);
+ * - the values of the best integer solution found (see SolutionManagerRepresentative.val);
+ * - the counters of the cutting plane step (iteration, first relaxation, time spent, ...).
+ *
+ * The checkpoint is written at most every <period> seconds (see AbstractCuttingPlane.solve()). The file is first written in a temporary file and then renamed so that a valid checkpoint always exists.
+ * A cutting plane step can be resumed from a checkpoint thanks to AbstractCuttingPlane.resume().
+ *
+ * @author zach
+ *
+ */
+public class CPCheckpoint {
+
+	private static final int VERSION = 1;
+
+	public String file;
+
+	/** Minimal time in seconds between two checkpoints */
+	public double period;
+
+	/** Time of the cutting plane step at which the last checkpoint has been written */
+	private double lastWriteTime = 0.0;
+
+	/* Content of the last checkpoint read */
+	public int n;
+	public int iteration;
+	public double firstRelaxation;
+	public double elapsedTime;
+	public double relaxation;
+	public double bestInt = Double.MAX_VALUE;
+
+	/** Values of the variables in the best integer solution (null if no integer solution has been found) */
+	public double[] bestMIP = null;
+
+	ArrayList<CutLibrary.Entry> cuts = new ArrayList<>();
+
+	/**
+	 * @param file File in which the checkpoint is written (or from which it is read)
+	 * @param period Minimal time in seconds between two checkpoints
+	 */
+	public CPCheckpoint(String file, double period){
+		this.file = file;
+		this.period = period;
+	}
+
+	/**
+	 * Test if a checkpoint must be written
+	 * @param time Time spent in the cutting plane step (in seconds)
+	 */
+	public boolean isDue(double time){
+		return time - lastWriteTime >= period;
+	}
+
+	/**
+	 * Write the checkpoint
+	 * @param sep The separation families (the inequalities of their lists of added inequalities are saved)
+	 * @param formulation The formulation of the cutting plane
+	 * @param cpresult The results of the cutting plane step
+	 * @param time Time spent in the cutting plane step (in seconds)
+	 * @param relaxation Value of the last relaxation
+	 * @param bestInt Value of the best integer solution (Double.MAX_VALUE if none has been found)
+	 * @param mip Best integer solution (null if none has been found)
+	 */
+	public void write(List<CP_Separation<?>> sep, IFEdgeV formulation, CPResult cpresult, double time, double relaxation, double bestInt, SolutionManagerRepresentative mip){
+
+		HashMap<IloNumVar, int[]> ids = CutLibrary.variableIds(formulation);
+		int[] k = CutLibrary.clusterNumberBounds(formulation);
+		File tmp = new File(file + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+
+			out.writeInt(VERSION);
+			out.writeInt(formulation.n());
+			out.writeInt(cpresult.cp_iteration);
+			out.writeDouble(cpresult.cp_first_relaxation);
+			out.writeDouble(time);
+			out.writeDouble(relaxation);
+			out.writeDouble(bestInt);
+
+			if(mip == null)
+				out.writeInt(0);
+			else{
+				out.writeInt(mip.val.length);
+
+				for(double v : mip.val)
+					out.writeDouble(v);
+			}
+
+			ArrayList<CutLibrary.Entry> entries = new ArrayList<>();
+
+			for(CP_Separation<?> cps : sep)
+				for(AbstractInequality<?> ai : cps.addedIneq){
+					CutLibrary.Entry e = CutLibrary.createEntry(cps.se.name, ai, ids, k);
+
+					if(e != null)
+						entries.add(e);
+				}
+
+			out.writeInt(entries.size());
+
+			for(CutLibrary.Entry e : entries)
+				CutLibrary.write(out, e);
+
+		} catch (IOException | IloException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		try {
+			Files.move(tmp.toPath(), new File(file).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		lastWriteTime = time;
+	}
+
+	/**
+	 * Read the checkpoint
+	 * @return True if the checkpoint has been read ; false if the file does not exist or is not valid
+	 */
+	public boolean read(){
+
+		if(!new File(file).exists())
+			return false;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+			if(in.readInt() != VERSION){
+				System.err.println("Checkpoint " + file + " ignored (incompatible version)");
+				return false;
+			}
+
+			n = in.readInt();
+			iteration = in.readInt();
+			firstRelaxation = in.readDouble();
+			elapsedTime = in.readDouble();
+			relaxation = in.readDouble();
+			bestInt = in.readDouble();
+
+			int mipSize = in.readInt();
+
+			if(mipSize == 0)
+				bestMIP = null;
+			else{
+				bestMIP = new double[mipSize];
+
+				for(int v = 0 ; v < mipSize ; ++v)
+					bestMIP[v] = in.readDouble();
+			}
+
+			int cutNb = in.readInt();
+			cuts = new ArrayList<>(cutNb);
+
+			for(int c = 0 ; c < cutNb ; ++c)
+				cuts.add(CutLibrary.read(in));
+
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+
+		lastWriteTime = elapsedTime;
+
+		return true;
+	}
+
+	/**
+	 * Get the inequalities of the checkpoint (the inequalities which depend on the number of clusters are ignored if the bounds on the number of clusters of the formulation are not the ones of the checkpoint)
+	 * @param formulation The formulation in which the inequalities are created
+	 * @return For each separation family, its inequalities
+	 */
+	public HashMap<String, ArrayList<AbstractInequality<?>>> getInequalities(IFEdgeV formulation){
+
+		HashMap<String, ArrayList<AbstractInequality<?>>> result = new HashMap<>();
+
+		if(formulation.n() != n)
+			return result;
+
+		int[] k = CutLibrary.clusterNumberBounds(formulation);
+
+		for(CutLibrary.Entry e : cuts){
+
+			/* The inequalities which depend on the number of clusters are only valid for the bounds with which they have been found */
+			if(e.isKDependent() && (e.kMin != k[0] || e.kMax != k[1]))
+				continue;
+
+			boolean isValid = true;
+
+			for(int t = 0 ; t < e.j.length && isValid ; ++t)
+				if(e.j[t] < 0 && !(formulation instanceof IFNodeV))
+					isValid = false;
+
+			if(isValid){
+
+				ArrayList<AbstractInequality<?>> list = result.get(e.family);
+
+				if(list == null){
+					list = new ArrayList<>();
+					result.put(e.family, list);
+				}
+
+				list.add(new SparseInequality(formulation, e.i, e.j, e.coef, e.lbound, e.ubound, e.isKDependent()));
+			}
+		}
+
+		return result;
+	}
+
+}
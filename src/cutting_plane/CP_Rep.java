@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 
 import callback.cut_callback.FastCutCallback;
+import callback.heuristic_callback.PortfolioHeuristicCallback;
 import formulation.Partition;
 import formulation.PartitionWithRepresentative;
 import formulation.PartitionWithTildes;
@@ -148,6 +149,10 @@ public class CP_Rep extends AbstractCuttingPlane<PartitionWithRepresentative>{
 			else
 				formulation = new PartitionWithRepresentative((RepParam)formulation.p);
 
+			/* Fix the variables by reduced cost */
+			if(reducedCostFixing != null)
+				reducedCostFixing.apply(formulation);
+
 
 			//		}
 			//		if(remaining_time != -1)
@@ -217,6 +222,10 @@ public class CP_Rep extends AbstractCuttingPlane<PartitionWithRepresentative>{
 			if(acc != null)
 				formulation.getCplex().use(acc);
 
+			/* Give the solutions of the portfolio heuristic to cplex */
+			if(portfolio != null)
+				formulation.getCplex().use(new PortfolioHeuristicCallback(formulation, portfolio));
+
 			cpresult.time = - formulation.getCplex().getCplexTime();
 
 			formulation.getCplex().solve();
@@ -0,0 +1,395 @@
+package cutting_plane;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import formulation.interfaces.IFConstrainedNbOfClusters;
+import formulation.interfaces.IFEdgeV;
+import formulation.interfaces.IFNodeV;
+import formulation.interfaces.IFormulation;
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExprIterator;
+import ilog.concert.IloNumVar;
+import inequality_family.AbstractInequality;
+import inequality_family.Range;
+import inequality_family.SparseInequality;
+import variable.VariableGetter;
+
+/**
+ * Persistent library of the inequalities found by the cutting plane for a given graph.
+ *
+ * The library of a graph is stored in file <directory>/<instance>_n<n>.cuts. It is loaded when the library is created and saved by save().
+ *
+ * Most of the inequalities (triangle, ST, TCC, paw, ...) only depend on the graph and not on the weights of the edges or on the number of clusters (see AbstractInequality.isKDependent()).
+ * These inequalities can be reused when the same graph is solved with another objective (e.g., another value of gapDiss) or another number of clusters.
+ * The other inequalities are only reused if the bounds on the number of clusters are the same.
+ *
+ * Each inequality is stored as a list of terms on the edge and node variables of the formulation, with the name of the separation family which found it.
+ * When the library is used, only the inequalities violated by the first relaxation are added to the model (see AbstractCuttingPlane.solve()).
+ *
+ * @author zach
+ *
+ */
+public class CutLibrary {
+
+	private static final int VERSION = 1;
+
+	public String file;
+
+	/** Number of nodes of the graph */
+	public int n;
+
+	/** Maximal number of inequalities in the library (the oldest inequalities are forgotten first) */
+	public int maxInequalityNb = 200000;
+
+	/** An inequality of the library is added to the model if its slack in the first relaxation is lower than this value */
+	public double violationEps = 1E-4;
+
+	ArrayList<Entry> entries = new ArrayList<>();
+	HashSet<String> keys = new HashSet<>();
+
+	/** Number of inequalities of the library added to the model during the last call to getViolatedInequalities() */
+	public int preloadedNb = 0;
+
+	/**
+	 * Inequality of the library
+	 */
+	static class Entry{
+
+		String family;
+
+		/** Bounds on the number of clusters for which the inequality is valid (-1 if it is valid for any number of clusters) */
+		int kMin, kMax;
+
+		double lbound, ubound;
+
+		/** Term t is associated to edge (i[t], j[t]) if j[t] >= 0 and to node i[t] otherwise */
+		int[] i, j;
+		double[] coef;
+
+		boolean isKDependent(){
+			return kMin != -1 || kMax != -1;
+		}
+
+		/**
+		 * @return A key which is identical for two entries representing the same inequality
+		 */
+		String key(){
+
+			String[] terms = new String[coef.length];
+
+			for(int t = 0 ; t < coef.length ; ++t)
+				terms[t] = i[t] + "," + j[t] + ":" + coef[t];
+
+			Arrays.sort(terms);
+
+			StringBuilder sb = new StringBuilder();
+			sb.append(kMin).append(' ').append(kMax).append(' ').append(lbound).append(' ').append(ubound);
+
+			for(String s : terms)
+				sb.append(' ').append(s);
+
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Create the library of a graph and load it if its file exists
+	 * @param directory Directory in which the libraries are stored
+	 * @param instance Name of the graph (e.g., its input file)
+	 * @param n Number of nodes of the graph
+	 */
+	public CutLibrary(String directory, String instance, int n){
+
+		this.n = n;
+		this.file = directory + File.separator + instance.replaceAll("[^A-Za-z0-9.-]", "_") + "_n" + n + ".cuts";
+
+		if(new File(file).exists())
+			load();
+	}
+
+	public int size(){
+		return entries.size();
+	}
+
+	/**
+	 * Add the inequalities of separation families in the library
+	 * @param sep The separation families
+	 * @param formulation The formulation which contains the inequalities
+	 * @return The number of inequalities which were not already in the library
+	 */
+	public int add(List<CP_Separation<?>> sep, IFEdgeV formulation){
+
+		if(formulation.n() != n)
+			return 0;
+
+		HashMap<IloNumVar, int[]> ids = variableIds(formulation);
+		int[] k = clusterNumberBounds(formulation);
+		int addedNb = 0;
+
+		for(CP_Separation<?> cps : sep)
+			for(AbstractInequality<?> ai : cps.addedIneq)
+				try {
+					Entry e = createEntry(cps.se.name, ai, ids, k);
+
+					if(e != null && keys.add(e.key())){
+						entries.add(e);
+						addedNb++;
+					}
+				} catch (IloException e) {
+					e.printStackTrace();
+				}
+
+		if(entries.size() > maxInequalityNb){
+
+			List<Entry> forgotten = entries.subList(0, entries.size() - maxInequalityNb);
+
+			for(Entry e : forgotten)
+				keys.remove(e.key());
+
+			forgotten.clear();
+		}
+
+		return addedNb;
+	}
+
+	/**
+	 * Get the inequalities of the library which are valid for a formulation and violated by its current relaxation
+	 * @param formulation The formulation
+	 * @param vg Variable getter which provides the current relaxation
+	 * @return For each separation family, the violated inequalities found by this family
+	 * @throws IloException
+	 */
+	public HashMap<String, ArrayList<AbstractInequality<?>>> getViolatedInequalities(IFEdgeV formulation, VariableGetter vg) throws IloException{
+
+		HashMap<String, ArrayList<AbstractInequality<?>>> result = new HashMap<>();
+		preloadedNb = 0;
+
+		if(formulation.n() != n || entries.isEmpty())
+			return result;
+
+		int[] k = clusterNumberBounds(formulation);
+		boolean hasNodeVar = formulation instanceof IFNodeV;
+
+		/* Evaluate all the valid inequalities at once */
+		CutPool candidates = new CutPool();
+		ArrayList<String> family = new ArrayList<>();
+
+		for(Entry e : entries){
+
+			if(e.isKDependent() && (e.kMin != k[0] || e.kMax != k[1]))
+				continue;
+
+			boolean isValid = true;
+
+			for(int t = 0 ; t < e.j.length && isValid ; ++t)
+				if(e.j[t] < 0 && !hasNodeVar)
+					isValid = false;
+
+			if(isValid){
+				SparseInequality si = new SparseInequality(formulation, e.i, e.j, e.coef, e.lbound, e.ubound, e.isKDependent());
+				si.getRange();
+				candidates.add(si);
+				family.add(e.family);
+			}
+		}
+
+		double[] slack = candidates.slacks(vg);
+
+		for(int r = 0 ; r < candidates.size() ; ++r)
+			if(slack[r] < -violationEps){
+
+				ArrayList<AbstractInequality<?>> list = result.get(family.get(r));
+
+				if(list == null){
+					list = new ArrayList<>();
+					result.put(family.get(r), list);
+				}
+
+				list.add(candidates.inequality(r));
+				preloadedNb++;
+			}
+
+		return result;
+	}
+
+	public void save(){
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+
+			out.writeInt(VERSION);
+			out.writeInt(n);
+			out.writeInt(entries.size());
+
+			for(Entry e : entries)
+				write(out, e);
+
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void load(){
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+			if(in.readInt() != VERSION || in.readInt() != n){
+				System.err.println("Cut library " + file + " ignored (incompatible version or number of nodes)");
+				return;
+			}
+
+			int size = in.readInt();
+
+			for(int r = 0 ; r < size ; ++r){
+
+				Entry e = read(in);
+
+				if(keys.add(e.key()))
+					entries.add(e);
+			}
+
+		} catch (IOException e) {
+			e.printStackTrace();
+			entries.clear();
+			keys.clear();
+		}
+	}
+
+	static void write(DataOutputStream out, Entry e) throws IOException{
+
+		out.writeUTF(e.family);
+		out.writeInt(e.kMin);
+		out.writeInt(e.kMax);
+		out.writeDouble(e.lbound);
+		out.writeDouble(e.ubound);
+		out.writeInt(e.coef.length);
+
+		for(int t = 0 ; t < e.coef.length ; ++t){
+			out.writeInt(e.i[t]);
+			out.writeInt(e.j[t]);
+			out.writeDouble(e.coef[t]);
+		}
+	}
+
+	static Entry read(DataInputStream in) throws IOException{
+
+		Entry e = new Entry();
+		e.family = in.readUTF();
+		e.kMin = in.readInt();
+		e.kMax = in.readInt();
+		e.lbound = in.readDouble();
+		e.ubound = in.readDouble();
+
+		int termNb = in.readInt();
+		e.i = new int[termNb];
+		e.j = new int[termNb];
+		e.coef = new double[termNb];
+
+		for(int t = 0 ; t < termNb ; ++t){
+			e.i[t] = in.readInt();
+			e.j[t] = in.readInt();
+			e.coef[t] = in.readDouble();
+		}
+
+		return e;
+	}
+
+	/**
+	 * Convert an inequality into an entry of the library
+	 * @return The entry ; null if the inequality contains a variable which is neither an edge nor a node variable
+	 */
+	static Entry createEntry(String family, AbstractInequality<?> ai, HashMap<IloNumVar, int[]> ids, int[] k) throws IloException{
+
+		Range r = ai.range;
+
+		if(r == null)
+			r = ai.getRange();
+
+		ArrayList<int[]> termIds = new ArrayList<>();
+		ArrayList<Double> termCoefs = new ArrayList<>();
+		IloLinearNumExprIterator it = r.expr.linearIterator();
+
+		while(it.hasNext()){
+
+			int[] id = ids.get(it.nextNumVar());
+
+			if(id == null)
+				return null;
+
+			termIds.add(id);
+			termCoefs.add(it.getValue());
+		}
+
+		Entry e = new Entry();
+		e.family = family;
+		e.lbound = r.lbound;
+		e.ubound = r.ubound;
+		e.kMin = ai.isKDependent() ? k[0] : -1;
+		e.kMax = ai.isKDependent() ? k[1] : -1;
+		e.i = new int[termIds.size()];
+		e.j = new int[termIds.size()];
+		e.coef = new double[termIds.size()];
+
+		for(int t = 0 ; t < e.coef.length ; ++t){
+			e.i[t] = termIds.get(t)[0];
+			e.j[t] = termIds.get(t)[1];
+			e.coef[t] = termCoefs.get(t);
+		}
+
+		return e;
+	}
+
+	/**
+	 * @return The id of each edge variable ({i, j} with i > j) and of each node variable ({i, -1})
+	 */
+	static HashMap<IloNumVar, int[]> variableIds(IFEdgeV formulation){
+
+		HashMap<IloNumVar, int[]> ids = new HashMap<>();
+		int n = formulation.n();
+
+		try {
+			for(int i = 1 ; i < n ; ++i)
+				for(int j = 0 ; j < i ; ++j){
+					IloNumVar v = formulation.edgeVar(i, j);
+
+					if(v != null)
+						ids.put(v, new int[]{i, j});
+				}
+
+			if(formulation instanceof IFNodeV)
+				for(int i = 0 ; i < n ; ++i){
+					IloNumVar v = ((IFNodeV)formulation).nodeVar(i);
+
+					if(v != null)
+						ids.put(v, new int[]{i, -1});
+				}
+
+		} catch (IloException e) {
+			e.printStackTrace();
+		}
+
+		return ids;
+	}
+
+	static int[] clusterNumberBounds(IFormulation formulation){
+
+		if(formulation instanceof IFConstrainedNbOfClusters){
+			IFConstrainedNbOfClusters f = (IFConstrainedNbOfClusters)formulation;
+			return new int[]{f.minimalNumberOfClusters(), f.maximalNumberOfClusters()};
+		}
+
+		return new int[]{-1, -1};
+	}
+
+}
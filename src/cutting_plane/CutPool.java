@@ -0,0 +1,309 @@
+package cutting_plane;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExprIterator;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloRange;
+import inequality_family.AbstractInequality;
+import inequality_family.Range;
+import variable.VariableGetter;
+
+/**
+ * Store all the inequalities added to the model during the cutting plane step in compressed sparse row (CSR) form.
+ *
+ * This enables to evaluate the slack of the whole pool in one pass over a snapshot of the relaxation (all the variable values are obtained in one call) instead of evaluating each inequality term by term through VariableGetter.getValue().
+ *
+ * The rows are evaluated in parallel.
+ *
+ * @author zach
+ *
+ */
+public class CutPool {
+
+	/** Inequality represented by each row */
+	ArrayList<AbstractInequality<?>> inequalities = new ArrayList<>();
+
+	/** Row of each inequality in the pool */
+	HashMap<AbstractInequality<?>, Integer> rowOf = new HashMap<>();
+
+	/** Variables which appear in at least one row (i.e. the columns of the pool) */
+	ArrayList<IloNumVar> columns = new ArrayList<>();
+	HashMap<IloNumVar, Integer> columnOf = new HashMap<>();
+
+	/** Array representation of <columns> (null if a column has been added since its last creation) */
+	private IloNumVar[] columnArray = null;
+
+	/** rowStart[r] is the position in <column> and <coefficient> of the first term of row r ; rowStart[rowNb] is the number of non zero terms */
+	int[] rowStart = new int[16];
+	int[] column = new int[64];
+	double[] coefficient = new double[64];
+	double[] lbound = new double[16];
+	double[] ubound = new double[16];
+
+	int rowNb = 0;
+
+	public double eps = 1E-6;
+
+	/** Minimal number of rows in the pool before the evaluation is performed in parallel */
+	public static int minimalRowNbForParallelEvaluation = 1000;
+
+	/**
+	 * Add an inequality at the end of the pool.
+	 * The range of the inequality must have been created (see AbstractInequality.getRange()).
+	 * @param ai The inequality
+	 * @return True if the inequality has been added ; false if it is already in the pool
+	 * @throws IloException
+	 */
+	public boolean add(AbstractInequality<?> ai) throws IloException{
+
+		if(rowOf.containsKey(ai))
+			return false;
+
+		Range r = ai.range;
+
+		if(r == null)
+			r = ai.getRange();
+
+		ensureRowCapacity(rowNb + 2);
+
+		int nnz = rowStart[rowNb];
+		IloLinearNumExprIterator it = r.expr.linearIterator();
+
+		while(it.hasNext()){
+
+			IloNumVar var = it.nextNumVar();
+			double coef = it.getValue();
+
+			ensureTermCapacity(nnz + 1);
+			column[nnz] = columnId(var);
+			coefficient[nnz] = coef;
+			nnz++;
+		}
+
+		lbound[rowNb] = r.lbound;
+		ubound[rowNb] = r.ubound;
+		rowStart[rowNb + 1] = nnz;
+
+		inequalities.add(ai);
+		rowOf.put(ai, rowNb);
+		rowNb++;
+
+		return true;
+	}
+
+	/**
+	 * Remove a set of inequalities from the pool (the order of the other rows is preserved)
+	 * @param removed The inequalities to remove
+	 */
+	public void remove(Set<AbstractInequality<?>> removed){
+
+		if(removed.isEmpty())
+			return;
+
+		int newRow = 0;
+		int newNnz = 0;
+
+		ArrayList<AbstractInequality<?>> newInequalities = new ArrayList<>();
+		rowOf.clear();
+
+		for(int r = 0 ; r < rowNb ; ++r){
+
+			AbstractInequality<?> ai = inequalities.get(r);
+
+			if(!removed.contains(ai)){
+
+				int start = rowStart[r];
+				int end = rowStart[r + 1];
+
+				/* Shift the row to its new position (newNnz <= start so the copy is safe) */
+				System.arraycopy(column, start, column, newNnz, end - start);
+				System.arraycopy(coefficient, start, coefficient, newNnz, end - start);
+
+				rowStart[newRow] = newNnz;
+				lbound[newRow] = lbound[r];
+				ubound[newRow] = ubound[r];
+
+				newNnz += end - start;
+
+				newInequalities.add(ai);
+				rowOf.put(ai, newRow);
+				newRow++;
+			}
+		}
+
+		rowNb = newRow;
+		rowStart[rowNb] = newNnz;
+		inequalities = newInequalities;
+	}
+
+	public boolean contains(AbstractInequality<?> ai){
+		return rowOf.containsKey(ai);
+	}
+
+	public int size(){
+		return rowNb;
+	}
+
+	public AbstractInequality<?> inequality(int row){
+		return inequalities.get(row);
+	}
+
+	/**
+	 * Get the values of all the columns of the pool in the current solution
+	 * @param vg The variable getter which provides the solution
+	 * @return An array which contains the value of each column
+	 * @throws IloException
+	 */
+	public double[] snapshot(VariableGetter vg) throws IloException{
+
+		if(columnArray == null)
+			columnArray = columns.toArray(new IloNumVar[columns.size()]);
+
+		if(columnArray.length == 0)
+			return new double[0];
+
+		return vg.getValues(columnArray);
+	}
+
+	/**
+	 * Compute the slack of each row of the pool.
+	 * The slack of a row is the distance between its value and its closest finite bound (negative if the row is violated).
+	 * @param x Value of each column (see snapshot())
+	 * @return The slack of each row
+	 */
+	public double[] slacks(final double[] x){
+
+		final double[] slack = new double[rowNb];
+
+		IntConsumer evaluateRow = new IntConsumer(){
+
+			@Override
+			public void accept(int r) {
+
+				double value = 0.0;
+
+				for(int t = rowStart[r] ; t < rowStart[r + 1] ; ++t)
+					value += coefficient[t] * x[column[t]];
+
+				double s = Double.MAX_VALUE;
+
+				if(ubound[r] != Double.MAX_VALUE)
+					s = ubound[r] - value;
+
+				if(lbound[r] != -Double.MAX_VALUE)
+					s = Math.min(s, value - lbound[r]);
+
+				slack[r] = s;
+			}
+		};
+
+		if(rowNb >= minimalRowNbForParallelEvaluation)
+			IntStream.range(0, rowNb).parallel().forEach(evaluateRow);
+		else
+			for(int r = 0 ; r < rowNb ; ++r)
+				evaluateRow.accept(r);
+
+		return slack;
+	}
+
+	/**
+	 * Compute the slack of each row of the pool in the current solution
+	 * @param vg The variable getter which provides the solution
+	 * @return The slack of each row
+	 * @throws IloException
+	 */
+	public double[] slacks(VariableGetter vg) throws IloException{
+		return slacks(snapshot(vg));
+	}
+
+	/**
+	 * @return The ranges of the rows in the model (in the order of the rows)
+	 */
+	public IloRange[] ranges(){
+
+		IloRange[] result = new IloRange[rowNb];
+
+		for(int r = 0 ; r < rowNb ; ++r)
+			result[r] = inequalities.get(r).ilorange;
+
+		return result;
+	}
+
+	/**
+	 * Get the rows which reach one of their bounds in the current solution
+	 * @param vg The variable getter which provides the solution
+	 * @return A bitset in which bit r is set if row r is tight
+	 * @throws IloException
+	 */
+	public BitSet tightRows(VariableGetter vg) throws IloException{
+
+		double[] slack = slacks(snapshot(vg));
+		BitSet tight = new BitSet(rowNb);
+
+		for(int r = 0 ; r < rowNb ; ++r)
+			if(Math.abs(slack[r]) < eps)
+				tight.set(r);
+
+		return tight;
+	}
+
+	/**
+	 * Get the inequalities which reach one of their bounds in the current solution
+	 * @param vg The variable getter which provides the solution
+	 * @return The set of tight inequalities
+	 * @throws IloException
+	 */
+	public HashSet<AbstractInequality<?>> tightInequalities(VariableGetter vg) throws IloException{
+
+		BitSet tight = tightRows(vg);
+		HashSet<AbstractInequality<?>> result = new HashSet<>();
+
+		for(int r = tight.nextSetBit(0) ; r >= 0 ; r = tight.nextSetBit(r + 1))
+			result.add(inequalities.get(r));
+
+		return result;
+	}
+
+	private int columnId(IloNumVar var){
+
+		Integer id = columnOf.get(var);
+
+		if(id == null){
+			id = columns.size();
+			columns.add(var);
+			columnOf.put(var, id);
+			columnArray = null;
+		}
+
+		return id;
+	}
+
+	private void ensureRowCapacity(int size){
+
+		if(size > rowStart.length){
+			int newSize = Math.max(size, 2 * rowStart.length);
+			rowStart = Arrays.copyOf(rowStart, newSize);
+			lbound = Arrays.copyOf(lbound, newSize);
+			ubound = Arrays.copyOf(ubound, newSize);
+		}
+	}
+
+	private void ensureTermCapacity(int size){
+
+		if(size > column.length){
+			int newSize = Math.max(size, 2 * column.length);
+			column = Arrays.copyOf(column, newSize);
+			coefficient = Arrays.copyOf(coefficient, newSize);
+		}
+	}
+
+}
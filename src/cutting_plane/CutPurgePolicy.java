@@ -0,0 +1,265 @@
+package cutting_plane;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import cplex.Cplex;
+import ilog.concert.IloException;
+import ilog.concert.IloRange;
+import inequality_family.AbstractInequality;
+import variable.VariableGetter;
+
+/**
+ * Policy which removes the inactive inequalities from the cutting plane model.
+ *
+ * For each inequality in the model, the policy counts the number of consecutive iterations during which it is not binding (its age).
+ * An inequality is binding if its slack is lower than <bindingSlack> or if its dual value is greater than <bindingDual>.
+ * Its age is only increased if its slack is greater than <nonBindingSlack> (hysteresis: an inequality whose slack is between the two thresholds keeps its age).
+ *
+ * At the end of an iteration:
+ * - the inequalities whose age is at least <maxAge> are evicted;
+ * - if the model contains more than <maxRowNb> inequalities, the oldest inequalities (with an age of at least <minAgeForBudget>) are evicted until the budget is respected.
+ *
+ * The evicted inequalities are kept in a pool. At each iteration, the evicted inequalities violated by the current relaxation are added back to the model without calling the separation algorithms.
+ *
+ * @author zach
+ *
+ */
+public class CutPurgePolicy {
+
+	/** Number of consecutive non binding iterations after which an inequality is evicted */
+	public int maxAge;
+
+	/** Maximal number of inequalities added by the cutting plane in the model (Integer.MAX_VALUE if there is no limit) */
+	public int maxRowNb;
+
+	/** Minimal age of an inequality evicted to respect <maxRowNb> */
+	public int minAgeForBudget = 1;
+
+	/** An inequality with a slack lower than this value is binding */
+	public double bindingSlack = 1E-6;
+
+	/** The age of an inequality is only increased if its slack is greater than this value */
+	public double nonBindingSlack = 1E-3;
+
+	/** An inequality with a dual value greater than this value (in absolute value) is binding */
+	public double bindingDual = 1E-9;
+
+	/** True if the dual values of the inequalities are used to determine if they are binding */
+	public boolean useDuals = true;
+
+	/** Maximal number of inequalities kept in the pool of evicted inequalities (the oldest evicted inequalities are forgotten first) */
+	public int maxEvictedNb = 100000;
+
+	/** An evicted inequality is added back if its slack is lower than this value */
+	public double violationEps = 1E-4;
+
+	/** Number of consecutive non binding iterations of each inequality in the model */
+	HashMap<AbstractInequality<?>, Integer> age = new HashMap<>();
+
+	/** Inequalities evicted from the model */
+	CutPool evicted = new CutPool();
+
+	/** Separation family from which each evicted inequality was obtained */
+	HashMap<AbstractInequality<?>, CP_Separation<?>> owner = new HashMap<>();
+
+	/** Total number of evicted inequalities */
+	public int evictedNb = 0;
+
+	/** Total number of inequalities added back from the pool of evicted inequalities */
+	public int readdedNb = 0;
+
+	public CutPurgePolicy(int maxAge, int maxRowNb){
+		this.maxAge = maxAge;
+		this.maxRowNb = maxRowNb;
+	}
+
+	/**
+	 * Update the age of the inequalities of the model according to the current relaxation.
+	 * Must be called after each resolution of the relaxation.
+	 * @param cutPool The inequalities in the model
+	 * @param vg Variable getter which provides the current relaxation
+	 * @param cplex The cplex object which solved the relaxation (used to get the dual values)
+	 * @throws IloException
+	 */
+	public void updateAges(CutPool cutPool, VariableGetter vg, Cplex cplex) throws IloException{
+
+		double[] slack = cutPool.slacks(vg);
+		double[] dual = null;
+
+		if(useDuals && cutPool.size() > 0)
+			try {
+				dual = cplex.getDuals(cutPool.ranges());
+			} catch (IloException e) {
+
+				/* The dual values are not available (e.g., the last resolution did not end with an optimal basis) */
+				dual = null;
+			}
+
+		for(int r = 0 ; r < cutPool.size() ; ++r){
+
+			AbstractInequality<?> ai = cutPool.inequality(r);
+			Integer a = age.get(ai);
+
+			if(a == null)
+				a = 0;
+
+			boolean isBinding = slack[r] < bindingSlack || (dual != null && Math.abs(dual[r]) > bindingDual);
+
+			if(isBinding)
+				a = 0;
+			else if(slack[r] > nonBindingSlack)
+				a++;
+
+			age.put(ai, a);
+		}
+	}
+
+	/**
+	 * Get the evicted inequalities which are violated by the current relaxation.
+	 * These inequalities are removed from the pool of evicted inequalities and added back in the list of inequalities of their separation family.
+	 * @param vg Variable getter which provides the current relaxation
+	 * @return The inequalities which must be added back in the model
+	 * @throws IloException
+	 */
+	public ArrayList<AbstractInequality<?>> getViolatedEvictedInequalities(VariableGetter vg) throws IloException{
+
+		ArrayList<AbstractInequality<?>> result = new ArrayList<>();
+
+		if(evicted.size() == 0)
+			return result;
+
+		double[] slack = evicted.slacks(vg);
+		HashSet<AbstractInequality<?>> readded = new HashSet<>();
+
+		for(int r = 0 ; r < evicted.size() ; ++r)
+			if(slack[r] < -violationEps){
+
+				AbstractInequality<?> ai = evicted.inequality(r);
+				CP_Separation<?> cps = owner.remove(ai);
+
+				if(cps != null)
+					cps.addedIneq.add(ai);
+
+				age.put(ai, 0);
+				readded.add(ai);
+				result.add(ai);
+			}
+
+		evicted.remove(readded);
+		readdedNb += result.size();
+
+		return result;
+	}
+
+	/**
+	 * Evict the inactive inequalities from the model
+	 * @param sep The separation families (their lists of added inequalities are updated)
+	 * @param cutPool The inequalities in the model
+	 * @param cplex The cplex object which contains the model
+	 * @return The number of inequalities evicted
+	 */
+	public int purge(ArrayList<CP_Separation<?>> sep, CutPool cutPool, Cplex cplex){
+
+		HashSet<AbstractInequality<?>> toEvict = new HashSet<>();
+		ArrayList<AbstractInequality<?>> candidates = new ArrayList<>();
+
+		/* Get the inequalities which are too old and the candidates for the budget eviction */
+		for(int r = 0 ; r < cutPool.size() ; ++r){
+
+			AbstractInequality<?> ai = cutPool.inequality(r);
+			Integer a = age.get(ai);
+
+			if(a != null)
+				if(a >= maxAge)
+					toEvict.add(ai);
+				else if(a >= minAgeForBudget)
+					candidates.add(ai);
+		}
+
+		/* If the budget is exceeded, evict the oldest inequalities */
+		int excess = cutPool.size() - toEvict.size() - maxRowNb;
+
+		if(excess > 0){
+
+			Collections.sort(candidates, new Comparator<AbstractInequality<?>>(){
+
+				@Override
+				public int compare(AbstractInequality<?> o1, AbstractInequality<?> o2) {
+					return age.get(o2) - age.get(o1);
+				}
+			});
+
+			for(int i = 0 ; i < excess && i < candidates.size() ; ++i)
+				toEvict.add(candidates.get(i));
+		}
+
+		if(toEvict.isEmpty())
+			return 0;
+
+		/* Remove the inequalities from the model and put them in the pool of evicted inequalities */
+		for(CP_Separation<?> si : sep)
+			for(int i = si.addedIneq.size()-1 ; i >= 0 ; --i){
+
+				AbstractInequality<?> ai = si.addedIneq.get(i);
+
+				if(toEvict.contains(ai)){
+
+					IloRange range = ai.ilorange;
+
+					if(range != null)
+						cplex.remove(range);
+
+					ai.ilorange = null;
+					si.remove(i);
+					owner.put(ai, si);
+					age.remove(ai);
+
+					try {
+						evicted.add(ai);
+					} catch (IloException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+
+		cutPool.remove(toEvict);
+		evictedNb += toEvict.size();
+
+		forgetOldestEvictedInequalities();
+
+		return toEvict.size();
+	}
+
+	/**
+	 * Remove the oldest inequalities from the pool of evicted inequalities if it contains more than <maxEvictedNb> inequalities
+	 */
+	private void forgetOldestEvictedInequalities(){
+
+		int excess = evicted.size() - maxEvictedNb;
+
+		if(excess > 0){
+
+			HashSet<AbstractInequality<?>> forgotten = new HashSet<>();
+
+			for(int r = 0 ; r < excess ; ++r){
+				AbstractInequality<?> ai = evicted.inequality(r);
+				forgotten.add(ai);
+				owner.remove(ai);
+			}
+
+			evicted.remove(forgotten);
+		}
+	}
+
+	/**
+	 * @return The number of inequalities in the pool of evicted inequalities
+	 */
+	public int evictedPoolSize(){
+		return evicted.size();
+	}
+
+}
@@ -0,0 +1,128 @@
+package cutting_plane;
+
+import java.util.ArrayList;
+
+import cplex.Cplex;
+import formulation.interfaces.IFEdgeV;
+import formulation.interfaces.IFNodeV;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+
+/**
+ * Fix the edge and node variables thanks to their reduced costs in the last relaxation of the cutting plane step.
+ *
+ * Let z be the value of the relaxation (minimization problem) and UB the value of the best known integer solution.
+ * If a variable is at its lower bound 0 with a reduced cost d such that z + d > UB, any solution in which the variable is equal to 1 has a value greater than UB: the variable can be fixed to 0.
+ * Similarly, a variable at its upper bound 1 with a reduced cost d such that z - d > UB can be fixed to 1.
+ * As the inequality is strict, the best known integer solution satisfies all the fixings and remains a valid MIP start.
+ *
+ * The fixings are computed on the formulation of the cutting plane and then applied on the formulation of the branch and cut (see apply()).
+ *
+ * @author zach
+ *
+ */
+public class ReducedCostFixing {
+
+	/** Minimal difference between z + |d| and UB required to fix a variable */
+	public double eps = 1E-6;
+
+	/** Value to which each edge (i, j) with i > j is fixed (-1 if it is not fixed) */
+	byte[][] edgeFixing;
+
+	/** Value to which each node variable is fixed (-1 if it is not fixed ; null if the formulation has no node variable) */
+	byte[] nodeFixing;
+
+	/** Number of fixed variables */
+	public int fixedNb = 0;
+
+	/**
+	 * Compute the fixings from the last relaxation solved by cplex
+	 * @param formulation The formulation of the cutting plane
+	 * @param cplex The cplex object which solved the relaxation
+	 * @param relaxation Value of the relaxation
+	 * @param bestInt Value of the best known integer solution
+	 * @throws IloException If the reduced costs are not available
+	 */
+	public ReducedCostFixing(IFEdgeV formulation, Cplex cplex, double relaxation, double bestInt) throws IloException{
+
+		int n = formulation.n();
+		ArrayList<IloNumVar> vars = new ArrayList<>();
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j)
+				vars.add(formulation.edgeVar(i, j));
+
+		if(formulation instanceof IFNodeV)
+			for(int i = 0 ; i < n ; ++i)
+				vars.add(((IFNodeV)formulation).nodeVar(i));
+
+		IloNumVar[] varArray = vars.toArray(new IloNumVar[vars.size()]);
+
+		/* Get all the reduced costs and values at once */
+		double[] reducedCost = cplex.getReducedCosts(varArray);
+		double[] value = cplex.iloCplex.getValues(varArray);
+
+		int v = 0;
+		edgeFixing = new byte[n][];
+
+		for(int i = 1 ; i < n ; ++i){
+			edgeFixing[i] = new byte[i];
+
+			for(int j = 0 ; j < i ; ++j){
+				edgeFixing[i][j] = fixing(reducedCost[v], value[v], relaxation, bestInt);
+				v++;
+			}
+		}
+
+		if(formulation instanceof IFNodeV){
+			nodeFixing = new byte[n];
+
+			for(int i = 0 ; i < n ; ++i){
+				nodeFixing[i] = fixing(reducedCost[v], value[v], relaxation, bestInt);
+				v++;
+			}
+		}
+	}
+
+	/**
+	 * @return The value to which a variable can be fixed (-1 if it cannot be fixed)
+	 */
+	private byte fixing(double reducedCost, double value, double relaxation, double bestInt){
+
+		byte result = -1;
+
+		if(value < eps && reducedCost > 0 && relaxation + reducedCost > bestInt + eps)
+			result = 0;
+		else if(value > 1 - eps && reducedCost < 0 && relaxation - reducedCost > bestInt + eps)
+			result = 1;
+
+		if(result != -1)
+			fixedNb++;
+
+		return result;
+	}
+
+	/**
+	 * Set the bounds of the fixed variables in a formulation of the same graph
+	 * @param formulation The formulation (typically the formulation of the branch and cut)
+	 * @throws IloException
+	 */
+	public void apply(IFEdgeV formulation) throws IloException{
+
+		for(int i = 1 ; i < edgeFixing.length ; ++i)
+			for(int j = 0 ; j < i ; ++j)
+				if(edgeFixing[i][j] != -1)
+					fix(formulation.edgeVar(i, j), edgeFixing[i][j]);
+
+		if(nodeFixing != null && formulation instanceof IFNodeV)
+			for(int i = 0 ; i < nodeFixing.length ; ++i)
+				if(nodeFixing[i] != -1)
+					fix(((IFNodeV)formulation).nodeVar(i), nodeFixing[i]);
+	}
+
+	private void fix(IloNumVar var, double value) throws IloException{
+		var.setLB(value);
+		var.setUB(value);
+	}
+
+}
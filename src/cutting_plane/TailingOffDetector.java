@@ -0,0 +1,108 @@
+package cutting_plane;
+
+import java.util.ArrayDeque;
+
+/**
+ * Detect the tailing-off of a cutting plane step.
+ *
+ * The detector keeps the last <windowSize> points (time, relaxation value) and estimates the improvement rate of the relaxation by a least squares regression over these points.
+ * The cutting plane is considered to tail off when the improvement that would be obtained at this rate until the end of the remaining time, relatively to the current relaxation, is lower than <minProjectedImprovement>.
+ *
+ * The relaxation is assumed to increase (minimization problem).
+ *
+ * @author zach
+ *
+ */
+public class TailingOffDetector {
+
+	/** Number of points used to estimate the improvement rate */
+	public int windowSize;
+
+	/** Minimal relative improvement of the relaxation expected over the remaining time (e.g., 1E-3 for 0.1%) */
+	public double minProjectedImprovement;
+
+	/** Remaining time (in seconds) considered when the cutting plane step has no time limit */
+	public double horizonWithoutTimeLimit = 60.0;
+
+	/** Minimal time (in seconds) spanned by the window before the tailing-off can be detected */
+	public double minWindowTime = 1.0;
+
+	private ArrayDeque<double[]> window = new ArrayDeque<>();
+
+	public TailingOffDetector(int windowSize, double minProjectedImprovement){
+		this.windowSize = Math.max(2, windowSize);
+		this.minProjectedImprovement = minProjectedImprovement;
+	}
+
+	/**
+	 * Add a new point
+	 * @param time Time (in seconds) since the beginning of the cutting plane step
+	 * @param relaxation Value of the relaxation at this time
+	 */
+	public void add(double time, double relaxation){
+
+		window.addLast(new double[]{time, relaxation});
+
+		if(window.size() > windowSize)
+			window.removeFirst();
+	}
+
+	public void clear(){
+		window.clear();
+	}
+
+	/**
+	 * Estimate the improvement rate of the relaxation over the window (least squares slope)
+	 * @return The improvement of the relaxation by second (0 if the relaxation does not improve) ; Double.MAX_VALUE if the rate cannot be estimated yet
+	 */
+	public double improvementRate(){
+
+		if(window.size() < windowSize)
+			return Double.MAX_VALUE;
+
+		double meanT = 0.0;
+		double meanV = 0.0;
+
+		for(double[] point : window){
+			meanT += point[0];
+			meanV += point[1];
+		}
+
+		meanT /= window.size();
+		meanV /= window.size();
+
+		double covariance = 0.0;
+		double variance = 0.0;
+
+		for(double[] point : window){
+			covariance += (point[0] - meanT) * (point[1] - meanV);
+			variance += (point[0] - meanT) * (point[0] - meanT);
+		}
+
+		if(window.getLast()[0] - window.getFirst()[0] < minWindowTime || variance == 0.0)
+			return Double.MAX_VALUE;
+
+		return Math.max(0.0, covariance / variance);
+	}
+
+	/**
+	 * Test if the cutting plane step tails off
+	 * @param remainingTime Remaining time of the cutting plane step in seconds (-1 if there is no time limit)
+	 * @return True if the projected relative improvement over the remaining time is lower than <minProjectedImprovement>
+	 */
+	public boolean isTailingOff(double remainingTime){
+
+		double rate = improvementRate();
+
+		if(rate == Double.MAX_VALUE)
+			return false;
+
+		double horizon = remainingTime < 0 ? horizonWithoutTimeLimit : remainingTime;
+		double relaxation = window.getLast()[1];
+
+		double projectedImprovement = rate * horizon / Math.max(1.0, Math.abs(relaxation));
+
+		return projectedImprovement < minProjectedImprovement;
+	}
+
+}
@@ -22,6 +22,15 @@ public class Param {
 	public double tilim = -1;
 	
 	public boolean isInt = true;
+
+	/** Number of threads used by cplex (0 to use cplex default value) */
+	public int threads = 0;
+	
+	/** Give a name to each variable of the model (names are only useful to export or display the model and their creation is expensive for large models) */
+	public boolean nameVariables = true;
+	
+	/** Directory in which the models are exported once created and from which they are imported if they have already been created with the same parameters and the same input file (see cplex.ModelCache) ; null if no cache is used */
+	public String modelCacheDirectory = null;
 	
 	/** Input file which contains the weight value of the considered graph */
 	public String inputFile = null;
@@ -40,6 +49,9 @@ public class Param {
 		useCplexAutoCuts = p.useCplexAutoCuts;
 		tilim = p.tilim;
 		isInt = p.isInt;
+		threads = p.threads;
+		nameVariables = p.nameVariables;
+		modelCacheDirectory = p.modelCacheDirectory;
 		inputFile = p.inputFile;
 		cplex = p.cplex;
 	}
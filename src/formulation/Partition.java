@@ -7,14 +7,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
 import cplex.Cplex;
+import cplex.ModelCache;
 import formulation.interfaces.IFEdgeVClusterNb;
 import formulation.interfaces.IFEdgeW;
 import generate_input_file.InvalidInputFileException;
 import ilog.concert.IloException;
 import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumVar;
+import ilog.concert.IloObjective;
+import ilog.concert.IloRange;
 import ilog.cplex.IloCplex.UnknownObjectException;
 import variable.CplexVariableGetter;
 
@@ -29,6 +34,12 @@ public abstract class Partition implements IFEdgeVClusterNb, IFEdgeW{
 
 	public double[][] d;
 	
+	/** Time (in seconds) spent to create the variables, the objective and the constraints of the model */
+	public double buildTime = 0.0;
+	
+	/** Objective function of the model (see setGapDiss()) */
+	public IloObjective objective;
+	
 	public Partition(PartitionParam p) {
 		this.p = p;
 	}
@@ -40,6 +51,41 @@ public abstract class Partition implements IFEdgeVClusterNb, IFEdgeW{
 	 */
 	public IloNumVar[][] v_edge;
 		
+	/**
+	 * Change the value added to the weight of each edge (see Param.gapDiss) without creating a new model.
+	 * 
+	 * Only the coefficients of the objective are modified: the variables, the constraints and the cuts already added to the model are kept.
+	 * The next resolution thus starts from the previous basis (and, for a MIP, from the previous incumbent which remains feasible).
+	 * 
+	 * Warning: the callbacks which copied the weights (e.g., with LocalSearch.weights()) must be created again.
+	 * @param gapDiss The new value
+	 * @throws IloException
+	 */
+	public void setGapDiss(double gapDiss) throws IloException{
+
+		double delta = gapDiss - p.gapDiss;
+
+		if(delta == 0.0)
+			return;
+
+		IloNumVar[] var = new IloNumVar[n * (n - 1) / 2];
+		double[] coef = new double[var.length];
+		int v = 0;
+
+		for (int i = 1; i < n; ++i)
+			for (int j = 0; j < i; ++j) {
+				d[i][j] += delta;
+				d[j][i] = d[i][j];
+
+				var[v] = v_edge[i][j];
+				coef[v] = d[i][j];
+				v++;
+			}
+
+		getCplex().iloCplex.setLinearCoefs(objective, coef, var);
+		p.gapDiss = gapDiss;
+	}
+		
 	/**
 	 * Read a txt file which contains a low triangular matrix. This matrix
 	 * represent the dissimilarity between the elements to partition:
@@ -52,7 +98,7 @@ public abstract class Partition implements IFEdgeVClusterNb, IFEdgeW{
 	 * @param max_number_of_nodes Maximum number of line read in the file (i.e. maximum number of nodes considered in the problem) ; -1 if there is no limit
 	 * @throws InvalidInputFileException
 	 */
-	static double[][] readDissimilarityInputFile(PartitionParam param)
+	public static double[][] readDissimilarityInputFile(PartitionParam param)
 			{
 
 		double[][] d = null;
@@ -290,6 +336,33 @@ System.out.print("x" + i + "-" + j + "(" + value + ")\t\t");
 		return p;
 	}
 
+	/**
+	 * Create a formulation from weights which are already known (the input file of the parameters is not read)
+	 * @param d Weights of the edges (n x n symmetric matrix in which param.gapDiss is already added, see readDissimilarityInputFile())
+	 * @param param Parameters of the formulation
+	 * @return The formulation
+	 * @throws IloException
+	 */
+	public static Partition createPartition(double[][] d, Param param) throws IloException{
+
+		Partition p = null;
+
+		if(param instanceof TildeParam)
+			p = new PartitionWithTildes(d, (TildeParam) param);
+		else if(param instanceof RepParam)
+			p = new PartitionWithRepresentative(d, (RepParam) param);
+		else{
+			XYParam xyp = (XYParam) param;
+			if(xyp.isSecondXYFormulation)
+				p = new PartitionXY2(d, xyp);
+			else
+				p = new PartitionXY(d, xyp);
+		}
+		p.cvg = new CplexVariableGetter(p.getCplex());
+
+		return p;
+	}
+
 	public int maximalNumberOfClusters() {
 		return KMax();
 	}
@@ -297,6 +370,20 @@ System.out.print("x" + i + "-" + j + "(" + value + ")\t\t");
 		return KMin();
 	}
 
+	/** NN_1 constraints of the model (they depend on KMax, see removeNN_1Constraints()) */
+	public ArrayList<IloRange> nn1Constraints = new ArrayList<IloRange>();
+
+	/** Variable equal to the number of edges in the clusters used by the NN_1 constraints if PartitionParam.compactNN_1 is true (it is kept when the NN_1 constraints are removed) ; null otherwise */
+	public IloNumVar nn1Edges = null;
+
+	/**
+	 * Add the NN_1 constraints:
+	 * - for each node j, the number of edges in the clusters which do not contain j is at least the number of edges of the most balanced partition of n-1 nodes in KMax clusters;
+	 * - the number of edges in the clusters is at least the number of edges of the most balanced partition of n nodes in KMax clusters.
+	 * 
+	 * If PartitionParam.compactNN_1 is true, the sum of all the edge variables is represented by the variable <nn1Edges> and the constraint of node j is
+	 * nn1Edges - sum_{i != j} xij >= rhs (O(n^2) terms for all the constraints instead of O(n^3)).
+	 */
 	public void createNN_1Constraints(){
 
 		try {
@@ -306,18 +393,56 @@ System.out.print("x" + i + "-" + j + "(" + value + ")\t\t");
 			int n2 = d * (d-1) / 2;
 			int righthand = n1 * mo + n2 * (p.KMax-mo);
 			
+			if(p.compactNN_1){
+
+				if(nn1Edges == null){
+					nn1Edges = getCplex().iloCplex.numVar(0, n * (n-1) / 2);
+
+					if(nameVariables())
+						nn1Edges.setName("nn1_edges");
+				}
+				else
+					nn1Edges.setUB(n * (n-1) / 2);
+
+				/* nn1Edges = sum xlm */
+				IloLinearNumExpr expr = getCplex().linearNumExpr();
+				expr.addTerm(-1.0, nn1Edges);
+
+				for(int l = 1 ; l < n ; ++l)
+					for(int m = 0 ; m < l ; ++m)
+						expr.addTerm(+1.0, v_edge[l][m]);
+
+				IloRange r = getCplex().addRange(0.0, expr, 0.0);
+				nn1Constraints.add(r);
+
+				if(nameVariables())
+					r.setName("nn1_edges_def");
+			}
+
 			for(int j = 0 ; j < n ; ++j){
 				IloLinearNumExpr expr;
 					expr = getCplex().linearNumExpr();
 	
-				for(int l = 0 ; l < n ; ++l)
-					if(l != j)
-						for(int m = l+1 ; m < n ; ++m){
-							if(m != j)
-								expr.addTerm(+1.0, v_edge[l][m]);
-						}
+				if(p.compactNN_1){
+					expr.addTerm(+1.0, nn1Edges);
+
+					for(int i = 0 ; i < n ; ++i)
+						if(i != j)
+							expr.addTerm(-1.0, v_edge[j][i]);
+				}
+				else
+					for(int l = 0 ; l < n ; ++l)
+						if(l != j)
+							for(int m = l+1 ; m < n ; ++m){
+								if(m != j)
+									expr.addTerm(+1.0, v_edge[l][m]);
+							}
 			
-				getCplex().addGe(expr, righthand);
+				IloRange r = getCplex().addGe(expr, righthand);
+				nn1Constraints.add(r);
+
+				if(nameVariables())
+					r.setName("nn1_" + j);
 	
 			}
 	
@@ -328,17 +453,218 @@ System.out.print("x" + i + "-" + j + "(" + value + ")\t\t");
 			righthand = n1 * mo + n2 * (p.KMax-mo);
 			
 			IloLinearNumExpr expr = getCplex().linearNumExpr();
-			for(int l = 0 ; l < n ; ++l)
-				for(int m = l+1 ; m < n ; ++m){
-					expr.addTerm(+1.0, v_edge[l][m]);
-					}
+
+			if(p.compactNN_1)
+				expr.addTerm(+1.0, nn1Edges);
+			else
+				for(int l = 0 ; l < n ; ++l)
+					for(int m = l+1 ; m < n ; ++m){
+						expr.addTerm(+1.0, v_edge[l][m]);
+						}
 			
-			getCplex().addGe(expr, righthand);
+			IloRange r = getCplex().addGe(expr, righthand);
+			nn1Constraints.add(r);
+
+			if(nameVariables())
+				r.setName("nn1");
 
 		} catch (IloException e) {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * Remove the NN_1 constraints from the model (e.g., before changing the number of clusters)
+	 */
+	public void removeNN_1Constraints(){
+
+		for(IloRange r : nn1Constraints)
+			getCplex().remove(r);
+
+		nn1Constraints.clear();
+	}
+	
+	/**
+	 * @return True if the variables and the constraints which are modified after the creation of the model are named (the names are required to import a model from the cache, see Param.modelCacheDirectory)
+	 */
+	public boolean nameVariables() {
+		return p.nameVariables || p.modelCacheDirectory != null;
+	}
+
+	/**
+	 * @return The file of the model cache which corresponds to this formulation ; null if no cache is used
+	 */
+	protected File modelCacheFile() {
+
+		if(p.modelCacheDirectory == null)
+			return null;
+
+		return ModelCache.file(p.modelCacheDirectory, getClass().getSimpleName(), p, d, n);
+	}
+
+	/**
+	 * Import the model of this formulation from the cache (see Param.modelCacheDirectory)
+	 * @return True if the model has been imported ; false if it must be created
+	 */
+	protected boolean importCachedModel() {
+
+		File f = modelCacheFile();
+
+		if(f == null || !f.exists())
+			return false;
+
+		try {
+			getCplex().importModel(f.getPath());
+
+			HashMap<String, IloNumVar> variables = getCplex().importedVariables();
+			HashMap<String, IloRange> ranges = getCplex().importedRanges();
+
+			/* Edge variables */
+			v_edge = new IloNumVar[n][];
+
+			for(int i = 0 ; i < n ; ++i){
+				v_edge[i] = new IloNumVar[n];
+
+				for(int j = 0 ; j < i ; ++j){
+					v_edge[i][j] = ModelCache.variable(getCplex(), variables, "x_" + i + "_" + j, p.isInt, 1.0);
+					v_edge[j][i] = v_edge[i][j];
+				}
+			}
+
+			for(String name : ranges.keySet())
+				if(name.equals("nn1") || name.startsWith("nn1_"))
+					nn1Constraints.add(ranges.get(name));
+
+			nn1Edges = variables.get("nn1_edges");
+
+			bindImportedModel(variables, ranges);
+			objective = getCplex().iloCplex.getObjective();
+
+			return true;
+
+		} catch (IloException e) {
+			e.printStackTrace();
+
+			/* The model is created again */
+			try {
+				getCplex().iloCplex.clearModel();
+			} catch (IloException e1) {
+				e1.printStackTrace();
+			}
+
+			nn1Constraints.clear();
+			nn1Edges = null;
+
+			return false;
+		}
+	}
+
+	/**
+	 * Export the model of this formulation in the cache (see Param.modelCacheDirectory)
+	 */
+	protected void exportCachedModel() {
+
+		File f = modelCacheFile();
+
+		if(f != null){
+			f.getParentFile().mkdirs();
+			getCplex().exportModel(f.getPath());
+		}
+	}
+
+	/**
+	 * Get the variables and the constraints specific to the formulation from a model imported from the cache (called by importCachedModel() once the edge variables are obtained)
+	 * @param variables The variables of the imported model indexed by their names
+	 * @param ranges The constraints of the imported model indexed by their names
+	 * @throws IloException
+	 */
+	protected abstract void bindImportedModel(HashMap<String, IloNumVar> variables, HashMap<String, IloRange> ranges) throws IloException;
+
+	/**
+	 * Add a node to the model without creating a new model (the new node is node n and n is incremented).
+	 * 
+	 * Only the variables and the constraints which contain the new node are created.
+	 * The coefficients of the objective and of the constraints which contain all the nodes are updated ; the NN_1 constraints are created again.
+	 * The other constraints of the model (e.g., the cuts added by a cutting plane) remain valid.
+	 * 
+	 * Warning: the objects which copied the variables or the weights (e.g., the callbacks or MIPStartExpansion) must be created again.
+	 * @param weight Weight of the edges between the new node and the nodes 0, 1, ..., n-1 (gapDiss included)
+	 * @throws IloException
+	 */
+	public void addNode(double[] weight) throws IloException{
+
+		if(!isNodeAdditionSupported())
+			throw new UnsupportedOperationException("A node can not be added to " + getClass().getSimpleName());
+
+		int k = n;
+
+		/* Weights */
+		double[][] newD = new double[n + 1][];
+
+		for(int i = 0 ; i < n ; ++i){
+			newD[i] = new double[n + 1];
+			System.arraycopy(d[i], 0, newD[i], 0, n);
+			newD[i][k] = weight[i];
+		}
+
+		newD[k] = new double[n + 1];
+		System.arraycopy(weight, 0, newD[k], 0, n);
+
+		d = newD;
+		n++;
+
+		if(p.maxNumberOfNodes != -1)
+			p.maxNumberOfNodes = n;
+
+		/* Edge variables */
+		IloNumVar[][] newEdge = new IloNumVar[n][];
+
+		for(int i = 0 ; i < k ; ++i){
+			newEdge[i] = new IloNumVar[n];
+			System.arraycopy(v_edge[i], 0, newEdge[i], 0, k);
+		}
+
+		newEdge[k] = new IloNumVar[n];
+		double[] coef = new double[k];
+
+		for(int j = 0 ; j < k ; ++j){
+
+			if(p.isInt)
+				newEdge[k][j] = getCplex().iloCplex.intVar(0, 1);
+			else
+				newEdge[k][j] = getCplex().iloCplex.numVar(0, 1);
+
+			if(nameVariables())
+				newEdge[k][j].setName("x_" + k + "_" + j);
+
+			newEdge[j][k] = newEdge[k][j];
+			coef[j] = d[k][j];
+		}
+
+		v_edge = newEdge;
+
+		getCplex().iloCplex.setLinearCoefs(objective, coef, Arrays.copyOf(v_edge[k], k));
+
+		addLastNodeToModel();
+
+		if(p.useNN_1){
+			removeNN_1Constraints();
+			createNN_1Constraints();
+		}
+	}
+
+	/**
+	 * @return True if addNode() can be used with this formulation
+	 */
+	public boolean isNodeAdditionSupported() {
+		return true;
+	}
+
+	/**
+	 * Create the variables and the constraints specific to the formulation which contain the last node (called by addNode() once the edge variables of the node are created)
+	 * @throws IloException
+	 */
+	protected abstract void addLastNodeToModel() throws IloException;
 	
 	@Override
 	public Cplex getCplex() {
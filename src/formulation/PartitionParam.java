@@ -6,6 +6,9 @@ public class PartitionParam extends Param{
 	
 	public boolean useNN_1 = false;
 	
+	/** Express the NN_1 constraints with a variable equal to the number of edges in the clusters (O(n) terms by constraint) rather than with all the edges (O(n^2) terms by constraint) */
+	public boolean compactNN_1 = true;
+	
 	/** Maximal number of nodes read into the input file */
 	public int maxNumberOfNodes = -1;
 	
@@ -31,6 +34,7 @@ public class PartitionParam extends Param{
 		super(p);
 		
 		useNN_1 = p.useNN_1;
+		compactNN_1 = p.compactNN_1;
 		maxNumberOfNodes = p.maxNumberOfNodes;
 		KMax = p.KMax;
 		KMin = p.KMin;
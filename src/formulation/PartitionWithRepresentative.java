@@ -1,12 +1,20 @@
 package formulation;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
 import callback.lazy_callback.LazyCBTriangle;
+import cplex.ModelCache;
 import formulation.RepParam.Triangle;
 import formulation.interfaces.IFEdgeVNodeVClusterNbEdgeW;
 import ilog.concert.IloException;
 import ilog.concert.IloIntVar;
+import ilog.concert.IloLPMatrix;
 import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumVar;
 import ilog.concert.IloNumVarType;
+import ilog.concert.IloRange;
 import ilog.cplex.IloCplex;
 import ilog.cplex.IloCplex.DoubleParam;
 import ilog.cplex.IloCplex.IntParam;
@@ -90,14 +98,31 @@ public class PartitionWithRepresentative extends Partition implements IFEdgeVNod
 			if(rp.tilim != -1)
 				getCplex().setParam(IloCplex.DoubleParam.TiLim, Math.max(10,rp.tilim));
 
+			if(rp.threads > 0)
+				getCplex().setParam(IntParam.Threads, rp.threads);
+
 			getCplex().setParam(DoubleParam.WorkMem, 5000);
 			getCplex().setParam(DoubleParam.TreLim, 4000);
 			getCplex().setParam(IntParam.NodeFileInd, 3);
 
 			/* Create the variables */
-			createVariables();
-			createObjectiveFunction();
-			createConstraints(rp.triangle, rp.useUpper, rp.useLower);
+			buildTime = -getCplex().getCplexTime();
+			boolean imported = importCachedModel();
+
+			if(!imported){
+				createVariables();
+				createObjectiveFunction();
+				createConstraints(rp.triangle, rp.useUpper, rp.useLower);
+			}
+
+			/* The callbacks are not exported with the model */
+			else if(useLazyTriangles(rp.triangle))
+				getCplex().use(new LazyCBTriangle(this, 500));
+
+			buildTime += getCplex().getCplexTime();
+
+			if(!imported)
+				exportCachedModel();
 
 
 			//Turn off preprocessing
@@ -117,13 +142,11 @@ public class PartitionWithRepresentative extends Partition implements IFEdgeVNod
 		 * 
 		 * - if i is with j and k, then j and k are together
 		 */
-		if(triangle == Triangle.USE 
-				|| (triangle == Triangle.USE_IN_BC_ONLY && p.isInt == true)){
+		if(useTriangleConstraints(triangle)){
 			createTriangleConstraints();
 			//			System.out.println("\n!!Add triangle constraints to the model");
 		}
-		else if(triangle == Triangle.USE_LAZY
-				|| (triangle == Triangle.USE_LAZY_IN_BC_ONLY && p.isInt == true)){
+		else if(useLazyTriangles(triangle)){
 			System.out.println("\n!!Add lazy CB in BC");
 			getCplex().use(new LazyCBTriangle(this, 500));
 		}
@@ -163,6 +186,28 @@ public class PartitionWithRepresentative extends Partition implements IFEdgeVNod
 
 	}
 
+	/**
+	 * @return True if the triangle constraints are added to the model
+	 */
+	private boolean useTriangleConstraints(Triangle triangle){
+		return triangle == Triangle.USE 
+				|| (triangle == Triangle.USE_IN_BC_ONLY && p.isInt == true);
+	}
+
+	/**
+	 * @return True if the triangle constraints are generated by a lazy callback
+	 */
+	private boolean useLazyTriangles(Triangle triangle){
+		return triangle == Triangle.USE_LAZY
+				|| (triangle == Triangle.USE_LAZY_IN_BC_ONLY && p.isInt == true);
+	}
+
+	/** Constraint on the number of clusters (see setNumberOfClusters()) */
+	public IloRange clusterNbConstraint = null;
+
+	/**
+	 * Add the constraint KMin <= sum_i xi <= KMax (a bound is infinite if it is not restrictive)
+	 */
 	private void createNumberOfClusterConstraint() throws UnknownObjectException,
 	IloException  {
 
@@ -172,16 +217,38 @@ public class PartitionWithRepresentative extends Partition implements IFEdgeVNod
 		for(int i = 0 ; i < n ; i++)
 			expr.addTerm(1.0, this.nodeVar(i));
 		
-		if(p.KMax == p.KMin)
-			getCplex().addRange(new Range(p.KMax, expr, p.KMax));
-		
-		else {
-			
-			if(p.KMax < n) 
-				getCplex().addRange(new Range(expr, p.KMax));
-			
-			if(p.KMin > 1) 
-				getCplex().addRange(new Range(p.KMin, expr));
+		clusterNbConstraint = getCplex().addRange(new Range(clusterNbLowerBound(), expr, clusterNbUpperBound()));
+
+		if(nameVariables())
+			clusterNbConstraint.setName("clusterNb");
+	}
+
+	private double clusterNbLowerBound(){
+		return p.KMin > 1 || p.KMax == p.KMin ? p.KMin : -Double.MAX_VALUE;
+	}
+
+	private double clusterNbUpperBound(){
+		return p.KMax < n || p.KMax == p.KMin ? p.KMax : Double.MAX_VALUE;
+	}
+
+	/**
+	 * Change the bounds on the number of clusters without creating a new model.
+	 * The NN_1 constraints (which depend on KMax) are created again.
+	 * The other inequalities added to the model which depend on the number of clusters (see AbstractInequality.isKDependent()) must be removed by the caller.
+	 * @param KMin Minimal number of clusters
+	 * @param KMax Maximal number of clusters
+	 * @throws IloException
+	 */
+	public void setNumberOfClusters(int KMin, int KMax) throws IloException{
+
+		p.KMin = KMin;
+		p.KMax = KMax;
+
+		clusterNbConstraint.setBounds(clusterNbLowerBound(), clusterNbUpperBound());
+
+		if(p.useNN_1){
+			removeNN_1Constraints();
+			createNN_1Constraints();
 		}
 	}
 
@@ -317,7 +384,7 @@ public class PartitionWithRepresentative extends Partition implements IFEdgeVNod
 			for (int j = 0; j < i; ++j)
 				obj.addTerm(d[i][j], v_edge[i][j]);
 
-		getCplex().iloCplex.addMinimize(obj);
+		objective = getCplex().iloCplex.addMinimize(obj);
 
 	}
 
@@ -336,8 +403,9 @@ public class PartitionWithRepresentative extends Partition implements IFEdgeVNod
 
 		v_rep = getCplex().iloCplex.numVarArray(n, 0.0, 1.0);
 
-		for(int i = 0 ; i < n; i++)
-			v_rep[i].setName("r_" + i);
+		if(nameVariables())
+			for(int i = 0 ; i < n; i++)
+				v_rep[i].setName("r_" + i);
 
 		//		for (int i = 1; i < n; ++i)
 		//			v_edge[i] = cplex.intVarArray(i, 0, 1);
@@ -357,7 +425,8 @@ public class PartitionWithRepresentative extends Partition implements IFEdgeVNod
 				else
 					v_edge[i][j] = getCplex().iloCplex.numVar(0,1);
 
-				v_edge[i][j].setName("x_" + i + "_" + j);
+				if(nameVariables())
+					v_edge[i][j].setName("x_" + i + "_" + j);
 			}
 
 		}
@@ -382,6 +451,11 @@ public class PartitionWithRepresentative extends Partition implements IFEdgeVNod
 	 */
 	void createTriangleConstraints() throws IloException {
 
+		if(p instanceof RepParam && ((RepParam)p).bulkTriangleConstraints){
+			createTriangleConstraintsInBulk();
+			return;
+		}
+
 		for (int i = 0; i < n - 2; ++i)
 			for (int j = i + 1; j < n - 1; ++j)
 				for (int k = j + 1; k < n; ++k) {
@@ -403,6 +477,171 @@ public class PartitionWithRepresentative extends Partition implements IFEdgeVNod
 				}
 	}
 
+	/**
+	 * Add the same constraints as createTriangleConstraints() through an IloLPMatrix.
+	 * 
+	 * The coefficients of the constraints associated to the triples i < j < k are generated in blocks of rows (one block for each i).
+	 * The blocks are generated in parallel by batches of one block per processor, each block is added with a single call to IloLPMatrix.addRows() (the rows only contain column indices and coefficients, no expression is created) and the batch is released before the next one is generated.
+	 * At most one batch is thus in memory at the same time.
+	 * 
+	 * @throws IloException
+	 */
+	void createTriangleConstraintsInBulk() throws IloException {
+
+		if(n < 3)
+			return;
+
+		final IloLPMatrix matrix = getCplex().iloCplex.addLPMatrix();
+
+		/* Columns of the matrix: the representative variables then the edge variables (i > j) */
+		IloNumVar[] columns = new IloNumVar[n + n * (n - 1) / 2];
+		int v = 0;
+
+		for(int i = 0 ; i < n ; ++i){
+			columns[v] = v_rep[i];
+			v++;
+		}
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j){
+				columns[v] = v_edge[i][j];
+				v++;
+			}
+
+		final int firstColumn = matrix.addCols(columns);
+
+		/* The rows of a block share the same coefficient arrays */
+		final double[] triangleCoef = new double[]{1.0, 1.0, -1.0};
+		final double[] reinforcedCoef = new double[]{1.0, 1.0, -1.0, 1.0};
+
+		/* Number of blocks generated in parallel before being added */
+		int batchSize = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+		for(int first = 0 ; first < n - 2 ; first += batchSize){
+
+			final int batchStart = first;
+			int batchEnd = Math.min(n - 2, first + batchSize);
+
+			final int[][][] ind = new int[batchEnd - batchStart][][];
+			final double[][][] val = new double[batchEnd - batchStart][][];
+
+			IntStream.range(batchStart, batchEnd).parallel().forEach(new IntConsumer() {
+
+				@Override
+				public void accept(int i) {
+
+					int rowNb = 3 * (n - 1 - i) * (n - 2 - i) / 2;
+					int[][] blockInd = new int[rowNb][];
+					double[][] blockVal = new double[rowNb][];
+					int r = 0;
+
+					for (int j = i + 1; j < n - 1; ++j)
+						for (int k = j + 1; k < n; ++k) {
+
+							int ij = firstColumn + n + j * (j - 1) / 2 + i;
+							int ik = firstColumn + n + k * (k - 1) / 2 + i;
+							int jk = firstColumn + n + k * (k - 1) / 2 + j;
+
+							/* xi,j + xi,k - xj,k <= 1 */
+							blockInd[r] = new int[]{ij, ik, jk};
+							blockVal[r] = triangleCoef;
+							r++;
+
+							/* xj,i + xj,k - xi,k <= 1 */
+							blockInd[r] = new int[]{ij, jk, ik};
+							blockVal[r] = triangleCoef;
+							r++;
+
+							/* xk,i + xk,j - xj,i + xk <= 1 */
+							blockInd[r] = new int[]{ik, jk, ij, firstColumn + k};
+							blockVal[r] = reinforcedCoef;
+							r++;
+						}
+
+					ind[i - batchStart] = blockInd;
+					val[i - batchStart] = blockVal;
+				}
+			});
+
+			for(int b = 0 ; b < ind.length ; ++b){
+
+				double[] lb = new double[ind[b].length];
+				double[] ub = new double[ind[b].length];
+
+				Arrays.fill(lb, -Double.MAX_VALUE);
+				Arrays.fill(ub, 1.0);
+
+				matrix.addRows(lb, ub, ind[b], val[b]);
+
+				/* Free the block */
+				ind[b] = null;
+				val[b] = null;
+			}
+		}
+	}
+
+	@Override
+	protected void bindImportedModel(HashMap<String, IloNumVar> variables, HashMap<String, IloRange> ranges) throws IloException {
+
+		v_rep = new IloNumVar[n];
+
+		for(int i = 0 ; i < n ; i++)
+			v_rep[i] = ModelCache.variable(getCplex(), variables, "r_" + i, false, 1.0);
+
+		clusterNbConstraint = ranges.get("clusterNb");
+	}
+
+	@Override
+	protected void addLastNodeToModel() throws IloException {
+
+		int k = n - 1;
+		RepParam rp = (RepParam)p;
+
+		/* Representative variable */
+		IloNumVar[] newRep = new IloNumVar[n];
+		System.arraycopy(v_rep, 0, newRep, 0, k);
+		newRep[k] = getCplex().iloCplex.numVar(0.0, 1.0);
+
+		if(nameVariables())
+			newRep[k].setName("r_" + k);
+
+		v_rep = newRep;
+
+		/* Number of clusters */
+		getCplex().iloCplex.setLinearCoef(clusterNbConstraint, 1.0, v_rep[k]);
+		clusterNbConstraint.setBounds(clusterNbLowerBound(), clusterNbUpperBound());
+
+		/* Triangle constraints of the triples i < j < k */
+		if(useTriangleConstraints(rp.triangle)){
+			for (int i = 0; i < k - 1; ++i)
+				for (int j = i + 1; j < k; ++j) {
+
+					getCplex().addRange(new Triangle_Inequality(this, i, j, k).createRange());
+					getCplex().addRange(new Triangle_Inequality(this, j, i, k).createRange());
+
+					IloLinearNumExpr expr3 = getCplex().linearNumExpr();
+					expr3.addTerm(1.0, v_edge[k][i]);
+					expr3.addTerm(1.0, v_edge[k][j]);
+					expr3.addTerm(-1.0, v_edge[j][i]);
+					expr3.addTerm(+1.0, v_rep[k]);
+
+					getCplex().addLe(expr3, 1.0);
+				}
+		}
+
+		/* The lazy callback copied the edge variables: a new one replaces it */
+		else if(useLazyTriangles(rp.triangle))
+			getCplex().use(new LazyCBTriangle(this, 500));
+
+		/* Representative constraints of node k (as in createConstraints(), the upper ones are only used without triangle constraints nor lazy callback) */
+		else if(rp.useUpper)
+			for (int i = 0; i < k; ++i)
+				getCplex().addRange(new UpperRepInequality(this, i, k).createRange());
+
+		if(rp.useLower)
+			getCplex().addRange(new LowerRepInequality(this, k).createRange());
+	}
+
 	/**
 	 * Add the upper representative constraints (i.e. no more than 1
 	 * representative by cluster) : xj + xi,j <= 1 (i < j)
@@ -1,9 +1,14 @@
 package formulation;
 
+import java.util.HashMap;
+
+import cplex.ModelCache;
+import formulation.RepParam.Triangle;
 import formulation.interfaces.IFEdgeVNodeClusterVNodeVConstrainedClusterNb;
 import ilog.concert.IloException;
 import ilog.concert.IloNumVar;
 import ilog.concert.IloNumVarType;
+import ilog.concert.IloRange;
 import ilog.cplex.IloCplex.UnknownObjectException;
 import inequality_family.LinearFirstInequality;
 import inequality_family.LinearSecondInequality;
@@ -21,7 +26,34 @@ public class PartitionWithTildes extends PartitionWithRepresentative implements
 	
 	public PartitionWithTildes(double[][] objective, TildeParam tp) throws IloException{
 		super(objective, tp);
-		createLinearConstraints(tp.useLinear);
+	}
+
+	/**
+	 * The linear constraints are part of the model (they are thus exported in the model cache, see Param.modelCacheDirectory)
+	 */
+	@Override
+	public void createConstraints(Triangle triangle, boolean useUpper, boolean useLower) throws IloException{
+		super.createConstraints(triangle, useUpper, useLower);
+		createLinearConstraints(((TildeParam)p).useLinear);
+	}
+
+	@Override
+	protected void bindImportedModel(HashMap<String, IloNumVar> variables, HashMap<String, IloRange> ranges) throws IloException {
+
+		super.bindImportedModel(variables, ranges);
+
+		v_tilde = new IloNumVar[n][];
+		v_tilde[0] = v_edge[0];
+
+		for (int i = 1 ; i < n; ++i){
+			v_tilde[i] = new IloNumVar[n];
+			v_tilde[i][0] = v_tilde[0][i];
+
+			for(int j = 1 ; j < i ; ++j){
+				v_tilde[i][j] = ModelCache.variable(getCplex(), variables, "xt_" + i + "_" + j, false, 1.0);
+				v_tilde[j][i] = v_tilde[i][j];
+			}
+		}
 	}
 	
 	public void displaySolution(){
@@ -155,7 +187,9 @@ public class PartitionWithTildes extends PartitionWithRepresentative implements
 			
 			for(int j = 1 ; j < i ; ++j){
 				v_tilde[i][j] = getCplex().iloCplex.numVar(0, 1);
-				v_tilde[i][j].setName("xt_" + i + "_" + j);
+
+				if(nameVariables())
+					v_tilde[i][j].setName("xt_" + i + "_" + j);
 			}
 			
 		}
@@ -203,6 +237,13 @@ public class PartitionWithTildes extends PartitionWithRepresentative implements
 	public IloNumVar nodeInClusterVar(int i, int k) throws IloException {
 		return v_tilde[i][k];
 	}
-	
+
+	/**
+	 * The tilde variables of a new node are not created (a new model must be created)
+	 */
+	@Override
+	public boolean isNodeAdditionSupported() {
+		return false;
+	}
 	
 }
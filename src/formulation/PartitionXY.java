@@ -1,6 +1,10 @@
 package formulation;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+
 import callback.cut_callback.AbstractCutCallback;
+import cplex.ModelCache;
 import formulation.interfaces.IFEdgeVNodeClusterV;
 import formulation.interfaces.IFNodeClusterV;
 import ilog.concert.IloException;
@@ -8,6 +12,7 @@ import ilog.concert.IloIntVar;
 import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumVar;
 import ilog.concert.IloNumVarType;
+import ilog.concert.IloRange;
 import ilog.cplex.IloCplex;
 import ilog.cplex.IloCplex.UnknownObjectException;
 import inequality_family.Range;
@@ -89,14 +94,27 @@ public class PartitionXY extends Partition implements IFEdgeVNodeClusterV{
 				getCplex().setParam(IloCplex.DoubleParam.TiLim,
 						Math.max(10, xyp.tilim));
 
+			if (xyp.threads > 0)
+				getCplex().setParam(IloCplex.IntParam.Threads, xyp.threads);
+
 			// cplex.setParam(DoubleParam.WorkMem, 2000);
 			// cplex.setParam(DoubleParam.TreLim, 500);
 			// cplex.setParam(IntParam.NodeFileInd, 2);
 
 			/* Create the variables */
-			createVariables();
-			createObjectiveFunction();
-			createConstraints();
+			buildTime = -getCplex().getCplexTime();
+			boolean imported = importCachedModel();
+
+			if(!imported){
+				createVariables();
+				createObjectiveFunction();
+				createConstraints();
+			}
+
+			buildTime += getCplex().getCplexTime();
+
+			if(!imported)
+				exportCachedModel();
 
 			// Turn off preprocessing
 			// cplex.setParam(IloCplex.BooleanParam.PreInd, false);
@@ -166,6 +184,9 @@ public class PartitionXY extends Partition implements IFEdgeVNodeClusterV{
 
 	}
 
+	/** Constraints which ensure that the clusters are not empty (one for each cluster) */
+	ArrayList<IloRange> nonEmptyClusterConstraints = new ArrayList<IloRange>();
+
 	private void createNonEmptyClusterConstraints() {
 
 	//			addRange(new UniqueCluster_Inequality(this, i).createRange());
@@ -179,7 +200,11 @@ public class PartitionXY extends Partition implements IFEdgeVNodeClusterV{
 						expr.addTerm(+1.0, nodeInClusterVar(i, j));
 				}
 				
-				getCplex().addRange(new Range(1.0, expr));
+				IloRange r = getCplex().addRange(new Range(1.0, expr));
+				nonEmptyClusterConstraints.add(r);
+
+				if(nameVariables())
+					r.setName("nonEmpty_" + j);
 					
 			}
 		} catch (IloException e) {
@@ -224,7 +249,7 @@ public class PartitionXY extends Partition implements IFEdgeVNodeClusterV{
 			for (int j = 0; j < i; ++j)
 				obj.addTerm(d[i][j], v_edge[i][j]);
 
-		getCplex().iloCplex.addMinimize(obj);
+		objective = getCplex().iloCplex.addMinimize(obj);
 	}
 
 	private void createVariables() throws IloException {
@@ -255,7 +280,8 @@ public class PartitionXY extends Partition implements IFEdgeVNodeClusterV{
 				else
 					v_nodeCluster[i][k] = getCplex().iloCplex.numVar(0, 1);
 
-				v_nodeCluster[i][k].setName("y_" + i + "_" + k);
+				if (nameVariables())
+					v_nodeCluster[i][k].setName("y_" + i + "_" + k);
 
 			}
 
@@ -265,7 +291,8 @@ public class PartitionXY extends Partition implements IFEdgeVNodeClusterV{
 				else
 					v_edge[i][j] = getCplex().iloCplex.numVar(0, 1);
 
-				v_edge[i][j].setName("x_" + i + "_" + j);
+				if (nameVariables())
+					v_edge[i][j].setName("x_" + i + "_" + j);
 			}
 
 		}
@@ -281,6 +308,79 @@ public class PartitionXY extends Partition implements IFEdgeVNodeClusterV{
 
 	}
 
+	@Override
+	public boolean isNodeAdditionSupported() {
+
+		/* The number of clusters must not depend on the number of nodes */
+		return maxClusterId == KMax();
+	}
+
+	@Override
+	protected void bindImportedModel(HashMap<String, IloNumVar> variables, HashMap<String, IloRange> ranges) throws IloException {
+
+		v_nodeCluster = new IloNumVar[n][];
+
+		for (int i = 0; i < n; ++i) {
+			v_nodeCluster[i] = new IloNumVar[maxClusterId];
+
+			for (int k = 0; k < maxClusterId; ++k)
+				v_nodeCluster[i][k] = ModelCache.variable(getCplex(), variables, "y_" + i + "_" + k, isInt, 1.0);
+		}
+
+		for (int c = 0; ranges.containsKey("nonEmpty_" + c); ++c)
+			nonEmptyClusterConstraints.add(ranges.get("nonEmpty_" + c));
+	}
+
+	@Override
+	protected void addLastNodeToModel() throws IloException {
+
+		int k = n - 1;
+
+		/* Node cluster variables */
+		IloNumVar[][] newNodeCluster = new IloNumVar[n][];
+		System.arraycopy(v_nodeCluster, 0, newNodeCluster, 0, k);
+		newNodeCluster[k] = new IloNumVar[maxClusterId];
+
+		for (int c = 0; c < maxClusterId; ++c) {
+			if (isInt)
+				newNodeCluster[k][c] = getCplex().iloCplex.intVar(0, 1);
+			else
+				newNodeCluster[k][c] = getCplex().iloCplex.numVar(0, 1);
+
+			if (nameVariables())
+				newNodeCluster[k][c].setName("y_" + k + "_" + c);
+		}
+
+		v_nodeCluster = newNodeCluster;
+
+		/* Node k is in exactly one cluster */
+		IloLinearNumExpr expr = getCplex().linearNumExpr();
+
+		for (int c = 0; c < maxClusterId; ++c)
+			expr.addTerm(+1.0, nodeInClusterVar(k, c));
+
+		getCplex().addRange(new Range(1.0, expr, 1.0));
+
+		/* Node k can be in any non empty cluster */
+		for (int c = 0; c < nonEmptyClusterConstraints.size(); ++c)
+			getCplex().iloCplex.setLinearCoef(nonEmptyClusterConstraints.get(c), 1.0, nodeInClusterVar(k, c));
+
+		/* Node k can not be in a cluster whose id is greater than k */
+		for (int c = k + 1; c < maxClusterId; ++c) {
+			IloLinearNumExpr exprNS = getCplex().linearNumExpr();
+			exprNS.addTerm(+1.0, nodeInClusterVar(k, c));
+			getCplex().addRange(new Range(exprNS, 0.0));
+		}
+
+		/* Triangle constraints of the pairs (i, k) */
+		for (int i = 0; i < k; ++i)
+			for (int c = 0; c < maxClusterId; ++c) {
+				getCplex().addRange(new TriangleInequalityXY1(this, c, i, k).createRange());
+				getCplex().addRange(new TriangleInequalityXY2(this, c, i, k).createRange());
+				getCplex().addRange(new TriangleInequalityXY2(this, c, k, i).createRange());
+			}
+	}
+
 	@Override
 	public void displaySolution() throws UnknownObjectException, IloException {
 		System.out.println("Edges variables");
@@ -8,6 +8,9 @@ public class RepParam extends PartitionParam{
 	public boolean useUpper = true;
 	public Triangle triangle = Triangle.USE;
 	
+	/** True if the triangle constraints are generated in parallel and added to the model through an IloLPMatrix (instead of one range at a time) */
+	public boolean bulkTriangleConstraints = false;
+	
 	/**
 	 * Specify how the triangle inequalities must be used
 	 * USE : the triangle inequalities are always put into the model
@@ -30,6 +33,7 @@ public class RepParam extends PartitionParam{
 		useLower = pCopy.useLower;
 		useUpper = pCopy.useUpper;
 		triangle = pCopy.triangle;
+		bulkTriangleConstraints = pCopy.bulkTriangleConstraints;
 	}
 	
 	public RepParam(String inputFile, Cplex cplex, int K, boolean useNN_1){
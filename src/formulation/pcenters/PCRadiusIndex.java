@@ -3,7 +3,9 @@ package formulation.pcenters;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.HashMap;
 
+import cplex.ModelCache;
 import ilog.concert.IloException;
 import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumVar;
@@ -60,6 +62,11 @@ public class PCRadiusIndex extends PCDistanceOrdered<PCenterParam>{
 		kStar.setName("k*");
 	}
 
+	@Override
+	protected void bindNoneFactoryVariables(HashMap<String, IloNumVar> variables) throws IloException {
+		kStar = ModelCache.variable(getCplex(), variables, "k*", param.isInt, K);
+	}
+
 	@Override
 	protected void createObjective() throws IloException {
 
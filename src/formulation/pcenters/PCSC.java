@@ -3,8 +3,10 @@ package formulation.pcenters;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.HashMap;
 
 import cplex.Cplex;
+import cplex.ModelCache;
 import formulation.interfaces.IFNodeVNodeBV;
 import formulation.pcenters.PCenterIndexedDistancesParam.PCenterReturnType;
 import ilog.concert.IloException;
@@ -128,6 +130,15 @@ public class PCSC extends PCDistanceOrdered<PCenterIndexedDistancesParam> implem
 
 	}
 
+	@Override
+	protected void bindNoneFactoryVariables(HashMap<String, IloNumVar> variables) throws IloException {
+
+		z = new IloNumVar[K+1];
+
+		for(int i = 1 ; i <= K ; i++)
+			z[i] = ModelCache.variable(getCplex(), variables, "z" + i, param.isInt, 1.0);
+	}
+
 	@Override
 	public void displaySolution() throws UnknownObjectException, IloException {
 		super.displaySolution();
@@ -2,6 +2,7 @@ package formulation.pcenters;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -12,6 +13,7 @@ import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
@@ -19,6 +21,7 @@ import java.util.Set;
 import java.util.TreeSet;
 
 import cplex.Cplex;
+import cplex.ModelCache;
 import formulation.interfaces.IFNodeV;
 import formulation.pcenters.pCenterCreator.PCRadCreator;
 import formulation.pcenters.pCenterCreator.PCSCCreator;
@@ -734,10 +737,78 @@ public abstract class PCenter<CurrentParam extends PCenterParam> implements IFNo
 		if(param.tilim != -1)
 			getCplex().setParam(IloCplex.DoubleParam.TiLim, Math.max(10,param.tilim));
 
-		createFactoryVariables();
-		createNoneFactoryVariables();
-		createConstraints();
-		createObjective();
+		if(!importCachedModel()) {
+			createFactoryVariables();
+			createNoneFactoryVariables();
+			createConstraints();
+			createObjective();
+			exportCachedModel();
+		}
+	}
+
+	/**
+	 * @return The file of the model cache which corresponds to this formulation ; null if no cache is used (see Param.modelCacheDirectory)
+	 */
+	protected File modelCacheFile() {
+
+		if(param.modelCacheDirectory == null)
+			return null;
+
+		/* <d> contains the distances once the bounds and the dominated clients and factories have been taken into account */
+		return ModelCache.file(param.modelCacheDirectory, getClass().getSimpleName(), param, d, N, M, p, isFirstClientDominated ? 1 : 0, isFirstFactoryDominated ? 1 : 0);
+	}
+
+	/**
+	 * Import the model of this formulation from the cache
+	 * @return True if the model has been imported ; false if it must be created
+	 */
+	protected boolean importCachedModel() {
+
+		File f = modelCacheFile();
+
+		if(f == null || !f.exists())
+			return false;
+
+		try {
+			getCplex().importModel(f.getPath());
+
+			HashMap<String, IloNumVar> variables = getCplex().importedVariables();
+
+			y = new IloNumVar[M];
+
+			for(int j = 0 ; j < M ; j++)
+				if(!isFactoryDominated(j))
+					y[j] = ModelCache.variable(getCplex(), variables, "y" + j, param.isInt && param.isYInt, 1.0);
+
+			bindNoneFactoryVariables(variables);
+
+			return true;
+
+		} catch (IloException e) {
+			e.printStackTrace();
+
+			/* The model is created again */
+			try {
+				getCplex().iloCplex.clearModel();
+			} catch (IloException e1) {
+				e1.printStackTrace();
+			}
+
+			return false;
+		}
+	}
+
+	/**
+	 * Export the model of this formulation in the cache
+	 */
+	protected void exportCachedModel() {
+
+		File f = modelCacheFile();
+
+		if(f != null){
+			f.getParentFile().mkdirs();
+			getCplex().exportModel(f.getPath());
+		}
 	}
 
 	private void createFactoryVariables() throws IloException {
@@ -766,6 +837,13 @@ public abstract class PCenter<CurrentParam extends PCenterParam> implements IFNo
 
 	protected abstract void createObjective() throws IloException;
 
+	/**
+	 * Get the variables which are not factory variables from a model imported from the cache
+	 * @param variables The variables of the imported model indexed by their names
+	 * @throws IloException
+	 */
+	protected abstract void bindNoneFactoryVariables(HashMap<String, IloNumVar> variables) throws IloException;
+
 	@Override
 	public int n() {
 		return N;
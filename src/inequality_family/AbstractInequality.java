@@ -47,6 +47,15 @@ public abstract class AbstractInequality<Formulation extends IFormulation> imple
 	protected abstract double evaluate(VariableGetter vg) throws IloException;	
 	public abstract double getSlack(VariableGetter vg) throws IloException;
 
+	/**
+	 * Test if the validity of the inequality depends on the number of clusters.
+	 * Inequalities which only describe the partition polytope (e.g., triangle or ST inequalities) are valid whatever the number of clusters and whatever the weights of the edges.
+	 * @return True if the inequality is only valid for the current number of clusters (default value) ; false otherwise
+	 */
+	public boolean isKDependent(){
+		return true;
+	}
+
 	/**
 	 * Test if the inequality reaches its bound in the best known integer solution
 	 * @return True if the bound is reached, false otherwise.
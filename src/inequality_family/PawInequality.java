@@ -39,6 +39,11 @@ public class PawInequality extends AbstractInequality<IFEdgeVNodeV>{
 		return new Range(expr, 2.0);
 	}
 
+	@Override
+	public boolean isKDependent() {
+		return false;
+	}
+
 	@Override
 	public AbstractInequality<IFEdgeVNodeV> clone() {
 		return new PawInequality(formulation, a, b, c, d);
@@ -58,6 +58,11 @@ public class STInequality extends AbstractInequality<IFEdgeV>{
 		}
 
 	}
+	@Override
+	public boolean isKDependent() {
+		return false;
+	}
+
 	@Override
 	public STInequality clone() {
 
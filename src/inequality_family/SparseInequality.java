@@ -0,0 +1,102 @@
+package inequality_family;
+
+import formulation.interfaces.IFEdgeV;
+import formulation.interfaces.IFNodeV;
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExpr;
+import ilog.concert.IloNumVar;
+import variable.VariableGetter;
+
+/**
+ * Generic inequality defined by an explicit list of terms on the edge and node variables of a formulation.
+ * Used to restore inequalities which have been stored independently of their family (see cutting_plane.CutLibrary).
+ *
+ * Term t is associated to edge (i[t], j[t]) if j[t] >= 0 and to node i[t] otherwise (in which case the formulation must implement IFNodeV).
+ *
+ * @author zach
+ *
+ */
+@SuppressWarnings("serial")
+public class SparseInequality extends AbstractInequality<IFEdgeV> {
+
+	public int[] i;
+	public int[] j;
+	public double[] coef;
+
+	public double lbound;
+	public double ubound;
+
+	public boolean kDependent;
+
+	public SparseInequality(IFEdgeV formulation, int[] i, int[] j, double[] coef, double lbound, double ubound, boolean kDependent) {
+		super(formulation, IFEdgeV.class);
+
+		this.i = i;
+		this.j = j;
+		this.coef = coef;
+		this.lbound = lbound;
+		this.ubound = ubound;
+		this.kDependent = kDependent;
+	}
+
+	private IloNumVar var(int t) throws IloException{
+
+		if(j[t] >= 0)
+			return formulation.edgeVar(i[t], j[t]);
+		else
+			return ((IFNodeV)formulation).nodeVar(i[t]);
+	}
+
+	@Override
+	public Range createRange() {
+
+		IloLinearNumExpr expr = formulation.getCplex().linearNumExpr();
+
+		try {
+			for(int t = 0 ; t < coef.length ; ++t)
+				expr.addTerm(coef[t], var(t));
+
+		} catch (IloException e) {
+			e.printStackTrace();
+		}
+
+		return new Range(lbound, expr, ubound);
+	}
+
+	@Override
+	public boolean isKDependent() {
+		return kDependent;
+	}
+
+	@Override
+	public AbstractInequality<IFEdgeV> clone() {
+		return new SparseInequality(formulation, i.clone(), j.clone(), coef.clone(), lbound, ubound, kDependent);
+	}
+
+	@Override
+	protected double evaluate(VariableGetter vg) throws IloException {
+
+		double result = 0.0;
+
+		for(int t = 0 ; t < coef.length ; ++t)
+			result += coef[t] * vg.getValue(var(t));
+
+		return result;
+	}
+
+	@Override
+	public double getSlack(VariableGetter vg) throws IloException {
+
+		double value = evaluate(vg);
+		double slack = Double.MAX_VALUE;
+
+		if(ubound != Double.MAX_VALUE)
+			slack = ubound - value;
+
+		if(lbound != -Double.MAX_VALUE)
+			slack = Math.min(slack, value - lbound);
+
+		return slack;
+	}
+
+}
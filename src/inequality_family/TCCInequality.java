@@ -51,6 +51,11 @@ public class TCCInequality extends AbstractInequality<IFEdgeV>{
 		return result;
 	}
 
+	@Override
+	public boolean isKDependent() {
+		return false;
+	}
+
 	@Override
 	public AbstractInequality<IFEdgeV> clone() {
 
@@ -36,6 +36,11 @@ public class Triangle_Inequality extends AbstractInequality<IFEdgeV> {
 		return new Range(expr, 1.0);
 	}
 
+	@Override
+	public boolean isKDependent() {
+		return false;
+	}
+
 	@Override
 	public AbstractInequality<IFEdgeV> clone() {
 
@@ -76,6 +76,13 @@ public class ExecutionInocNumeroSpecialV3Time10MinTmax2 extends Execution{
 	int tilim;
 	ArrayList<Double> gapValues;
 
+	/** True if the model of the representative formulation is created once for each instance and only its objective is modified for each value of gapDiss (see Partition.setGapDiss()).
+	 * The other formulations must not be solved between two values of gapDiss since they use the same cplex object. */
+	public boolean reuseModel = false;
+
+	/** Model of the representative formulation of the current instance (used if reuseModel is true) */
+	Partition persistentRep = null;
+
 	public ExecutionInocNumeroSpecialV3Time10MinTmax2(Cplex cplex, int nm, int nM2, int km, int kM2,
 			int im, int iM2, int tilim) {
 		super(cplex, nm, nM2, km, kM2, im, iM2);
@@ -124,6 +131,9 @@ public class ExecutionInocNumeroSpecialV3Time10MinTmax2 extends Execution{
 
 			ComputeResults.log("(n,K): (" + c_n + "," + c_k + "," + c_i + ")");
 
+			/* A new instance is considered */
+			persistentRep = null;
+
 			for(int gap = 0 ; gap < gapValues.size() ; ++gap){
 
 				ComputeResults.log("gap: " + gap);
@@ -169,7 +179,21 @@ public class ExecutionInocNumeroSpecialV3Time10MinTmax2 extends Execution{
 
 					switch(formulation){
 					case REPRESENTATIVE:
-						p = ((PartitionWithRepresentative)createPartition(rp));
+
+						/* Only change the objective of the model of the previous value of gapDiss */
+						if(reuseModel && persistentRep != null){
+							p = persistentRep;
+							p.setGapDiss(rp.gapDiss);
+
+							/* The callbacks use the previous weights */
+							p.getCplex().clearCallback();
+						}
+						else
+							p = ((PartitionWithRepresentative)createPartition(rp));
+
+						if(reuseModel)
+							persistentRep = p;
+
 						KClosestRepresentatives.onlyRoot = false;
 						p.getCplex().use(new KClosestRepresentatives((PartitionWithRepresentative)p));
 						p.getCplex().use(new FastCutCallback((PartitionWithRepresentative)p, 100));
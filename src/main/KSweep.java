@@ -0,0 +1,244 @@
+package main;
+
+import java.util.ArrayList;
+
+import cplex.Cplex;
+import formulation.Partition;
+import formulation.PartitionWithRepresentative;
+import formulation.RepParam;
+import formulation.RepParam.Triangle;
+import formulation.interfaces.IFormulation;
+import ilog.concert.IloConversion;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVarType;
+import ilog.cplex.IloCplex;
+import inequality_family.AbstractInequality;
+import mipstart.LabelledPartition;
+import mipstart.LocalSearch;
+import mipstart.MIPStartExpansion;
+import results.ComputeResults;
+import separation.AbstractSeparation;
+import separation.SeparationDependentSetKL;
+import separation.SeparationKp1DenseHeuristic;
+
+/**
+ * Solve a graph for several numbers of clusters with a single model of the representative (or tildes) formulation.
+ *
+ * The model is created once. For each value of K:
+ * - the bounds of the constraint on the number of clusters are changed (see PartitionWithRepresentative.setNumberOfClusters()) ;
+ * - the inequalities added through addInequality() which depend on K are removed (the other ones remain valid, see AbstractInequality.isKDependent()) ;
+ * - the separation algorithms of <separations> are applied on the linear relaxation and the violated inequalities found are added through addInequality() ;
+ * - the best partition of the previous value of K is transformed into a partition with at most K clusters (clusters are merged or split by LocalSearch) and given to cplex as a MIP start.
+ *
+ * Only KMax changes (as in Execution.updateParam()), KMin is decreased if it becomes greater than KMax.
+ *
+ * @author zach
+ *
+ */
+public class KSweep {
+
+	public PartitionWithRepresentative formulation;
+
+	/** Weights of the edges (see LocalSearch) */
+	double[][] weight;
+
+	LabelledPartition partition;
+	MIPStartExpansion expansion;
+
+	/** True if the best partition of the previous value of K is used as a MIP start */
+	public boolean useMIPStart = true;
+
+	/** Separation algorithms applied on the linear relaxation before each resolution (they must use formulation.variableGetter()) */
+	public ArrayList<AbstractSeparation<?>> separations = new ArrayList<>();
+
+	/** Maximal number of times the linear relaxation is solved and separated before each resolution */
+	public int separationRounds = 5;
+
+	/** Inequalities added to the model */
+	ArrayList<AbstractInequality<?>> inequalities = new ArrayList<>();
+
+	/** Results of the last sweep (position K - km) */
+	public double[] time;
+	public double[] nodes;
+	public double[] bestRelaxation;
+	public double[] bestInt;
+	public int[][] label;
+
+	/** Number of inequalities added by the separation algorithms for each value of K */
+	public int[] addedInequalities;
+
+	/** Number of inequalities removed when K changed during the last sweep */
+	public int removedInequalities = 0;
+
+	public KSweep(RepParam param) throws IloException{
+
+		formulation = (PartitionWithRepresentative)Partition.createPartition(param);
+		weight = LocalSearch.weights(formulation);
+		partition = new LabelledPartition(weight);
+		expansion = new MIPStartExpansion(formulation);
+	}
+
+	/**
+	 * Add an inequality to the model (it is removed when K changes if it depends on K)
+	 * @param inequality The inequality
+	 * @throws IloException
+	 */
+	public void addInequality(AbstractInequality<?> inequality) throws IloException{
+
+		inequality.ilorange = formulation.getCplex().addRange(inequality.getRange());
+		inequalities.add(inequality);
+	}
+
+	/**
+	 * Remove the inequalities which depend on the number of clusters
+	 */
+	private void removeKDependentInequalities(){
+
+		ArrayList<AbstractInequality<?>> kept = new ArrayList<>();
+
+		for(AbstractInequality<?> ai : inequalities)
+			if(ai.isKDependent()){
+				formulation.getCplex().remove(ai.ilorange);
+				removedInequalities++;
+			}
+			else
+				kept.add(ai);
+
+		inequalities = kept;
+	}
+
+	/**
+	 * Add to the model the inequalities violated by the optimal solution of the linear relaxation which are found by the separation algorithms
+	 * @return The number of inequalities added
+	 * @throws IloException
+	 */
+	private int separateRelaxation() throws IloException{
+
+		if(separations.isEmpty())
+			return 0;
+
+		IloCplex iloCplex = formulation.getCplex().iloCplex;
+		int added = 0;
+
+		/* The integer variables are relaxed until the end of the separation */
+		IloConversion relaxation = iloCplex.conversion(expansion.var, IloNumVarType.Float);
+		iloCplex.add(relaxation);
+
+		try{
+			boolean found = true;
+
+			for(int round = 0 ; round < separationRounds && found ; ++round){
+
+				formulation.getCplex().solve();
+
+				if(iloCplex.getStatus() != IloCplex.Status.Optimal)
+					break;
+
+				found = false;
+
+				for(AbstractSeparation<?> s : separations)
+					for(AbstractInequality<? extends IFormulation> ai : s.separate())
+						if(ai.getSlack(formulation.variableGetter()) < -ai.eps){
+							addInequality(ai);
+							added++;
+							found = true;
+						}
+			}
+		}
+		finally{
+			iloCplex.remove(relaxation);
+		}
+
+		return added;
+	}
+
+	/**
+	 * Solve the model for each value of K between km and kM
+	 * @param km Minimal value of K
+	 * @param kM Maximal value of K
+	 * @throws IloException
+	 */
+	public void sweep(int km, int kM) throws IloException{
+
+		int size = Math.max(0, kM - km + 1);
+
+		time = new double[size];
+		nodes = new double[size];
+		bestRelaxation = new double[size];
+		bestInt = new double[size];
+		label = new int[size][];
+		addedInequalities = new int[size];
+		removedInequalities = 0;
+
+		int[] previousLabel = null;
+
+		for(int K = km ; K <= kM ; ++K){
+
+			int id = K - km;
+
+			if(K != formulation.KMax()){
+				formulation.setNumberOfClusters(Math.min(formulation.KMin(), K), K);
+				removeKDependentInequalities();
+			}
+
+			addedInequalities[id] = separateRelaxation();
+
+			/* Merge or split the clusters of the previous partition until it satisfies the new bounds */
+			if(useMIPStart && previousLabel != null){
+				partition.setLabels(LocalSearch.improve(weight, formulation.KMin(), formulation.KMax(), previousLabel));
+				expansion.addMIPStart(partition);
+			}
+
+			time[id] = formulation.getCplex().solve();
+			nodes[id] = formulation.getCplex().getNnodes();
+			bestRelaxation[id] = formulation.getCplex().getBestObjValue();
+
+			try{
+				bestInt[id] = formulation.getCplex().getObjValue();
+				label[id] = expansion.labels(formulation.getCplex().iloCplex.getValues(expansion.var));
+				previousLabel = label[id];
+			}
+			catch(IloException e){
+
+				/* No integer solution has been found */
+				bestInt[id] = Double.MAX_VALUE;
+			}
+		}
+	}
+
+	/**
+	 * Solve the input files n_<n>_id_<i>.txt of data/input_root_relaxation_100 for K from km to kM
+	 * The K-dependent inequalities are separated on the linear relaxation of each model
+	 */
+	public static void main(String[] args){
+
+		Cplex cplex = new Cplex();
+
+		int n = 20;
+		int km = 2;
+		int kM = 8;
+
+		for(int i = 0 ; i <= 6 ; ++i){
+
+			try{
+				RepParam rp = new RepParam("data/input_root_relaxation_100/n_" + n + "_id_" + i + ".txt", cplex, kM, Triangle.USE, true, true, true);
+				rp.tilim = 600;
+
+				KSweep ks = new KSweep(rp);
+				ks.separations.add(new SeparationKp1DenseHeuristic(ks.formulation, ks.formulation.variableGetter()));
+				ks.separations.add(new SeparationDependentSetKL(ks.formulation, ks.formulation.variableGetter(), 5, true));
+
+				ks.sweep(km, kM);
+
+				for(int K = km ; K <= kM ; ++K)
+					ComputeResults.log("\t" + ComputeResults.getDate() + " : KSweep (n,K,i) = (" + n + "," + K + "," + i + "): \t[relaxation, int] : [" + Math.round(ks.bestRelaxation[K - km]) + ", " + Math.round(ks.bestInt[K - km]) + "] (" + Math.round(ks.nodes[K - km]) + " nodes, " + Math.round(ks.time[K - km]) + "s), " + ks.addedInequalities[K - km] + " cuts added");
+
+				ComputeResults.log("\t" + ks.removedInequalities + " K-dependent cuts removed");
+
+			}catch(IloException e) {e.printStackTrace();}
+		}
+
+		cplex.end();
+	}
+
+}
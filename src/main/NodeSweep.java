@@ -0,0 +1,168 @@
+package main;
+
+import java.util.Arrays;
+
+import cplex.Cplex;
+import formulation.Partition;
+import formulation.PartitionParam;
+import formulation.PartitionWithRepresentative;
+import formulation.PartitionXY;
+import formulation.RepParam;
+import formulation.RepParam.Triangle;
+import ilog.concert.IloException;
+import mipstart.LabelledPartition;
+import mipstart.LocalSearch;
+import mipstart.MIPStartExpansion;
+import results.ComputeResults;
+
+/**
+ * Solve the first nm, nm+1, ..., nM nodes of an input file with a single model of the representative or of the XY formulation.
+ *
+ * The model is created for nm nodes. Then, for each new node:
+ * - the variables and the constraints which contain the node are added to the model (see Partition.addNode()) ;
+ * - the best partition of the previous number of nodes, in which the new node is added, is improved by LocalSearch and given to cplex as a MIP start.
+ *
+ * @author zach
+ *
+ */
+public class NodeSweep {
+
+	public Partition formulation;
+
+	/** Weights of the edges between the nM first nodes of the input file */
+	double[][] allWeights;
+
+	/** True if the best partition of the previous number of nodes is used as a MIP start */
+	public boolean useMIPStart = true;
+
+	/** Results of the last sweep (position n - nm) */
+	public double[] time;
+	public double[] nodes;
+	public double[] bestRelaxation;
+	public double[] bestInt;
+	public int[][] label;
+
+	int nm, nM;
+
+	/**
+	 * @param param Parameters of the formulation (its input file is read once)
+	 * @param nm Number of nodes of the first model
+	 * @param nM Number of nodes of the last model
+	 * @throws IloException
+	 */
+	public NodeSweep(PartitionParam param, int nm, int nM) throws IloException{
+
+		this.nm = nm;
+		this.nM = nM;
+
+		param.maxNumberOfNodes = nM;
+		allWeights = Partition.readDissimilarityInputFile(param);
+
+		/* The first model only contains the nm first nodes */
+		double[][] weight = new double[nm][];
+
+		for(int i = 0 ; i < nm ; ++i)
+			weight[i] = Arrays.copyOf(allWeights[i], nm);
+
+		param.maxNumberOfNodes = nm;
+		formulation = Partition.createPartition(weight, param);
+
+		if(!formulation.isNodeAdditionSupported())
+			throw new UnsupportedOperationException("A node can not be added to " + formulation.getClass().getSimpleName());
+	}
+
+	/**
+	 * Solve the models from nm to nM nodes
+	 * @throws IloException
+	 */
+	public void sweep() throws IloException{
+
+		int size = Math.max(0, nM - nm + 1);
+
+		time = new double[size];
+		nodes = new double[size];
+		bestRelaxation = new double[size];
+		bestInt = new double[size];
+		label = new int[size][];
+
+		int[] previousLabel = null;
+
+		for(int n = nm ; n <= nM ; ++n){
+
+			int id = n - nm;
+
+			if(n > formulation.n){
+				double[] weight = new double[n - 1];
+				System.arraycopy(allWeights[n - 1], 0, weight, 0, n - 1);
+				formulation.addNode(weight);
+			}
+
+			/* The variables of the model have changed */
+			MIPStartExpansion expansion = formulation instanceof PartitionXY ?
+					new MIPStartExpansion((PartitionXY)formulation)
+					: new MIPStartExpansion((PartitionWithRepresentative)formulation);
+
+			if(useMIPStart && previousLabel != null){
+
+				/* The new node is alone in its cluster, LocalSearch merges the clusters if there are too many */
+				int[] l = new int[n];
+				System.arraycopy(previousLabel, 0, l, 0, previousLabel.length);
+				l[n - 1] = n - 1;
+
+				double[][] weight = LocalSearch.weights(formulation);
+				int KMin = formulation instanceof PartitionXY ? ((PartitionXY)formulation).maxClusterId : formulation.KMin();
+				int KMax = formulation instanceof PartitionXY ? ((PartitionXY)formulation).maxClusterId : formulation.KMax();
+
+				LabelledPartition partition = new LabelledPartition(weight);
+				partition.setLabels(LocalSearch.improve(weight, KMin, KMax, l));
+				expansion.addMIPStart(partition);
+			}
+
+			time[id] = formulation.getCplex().solve();
+			nodes[id] = formulation.getCplex().getNnodes();
+			bestRelaxation[id] = formulation.getCplex().getBestObjValue();
+
+			try{
+				bestInt[id] = formulation.getCplex().getObjValue();
+				label[id] = expansion.labels(formulation.getCplex().iloCplex.getValues(expansion.var));
+				previousLabel = label[id];
+			}
+			catch(IloException e){
+
+				/* No integer solution has been found */
+				bestInt[id] = Double.MAX_VALUE;
+			}
+		}
+	}
+
+	/**
+	 * Solve the first nm to nM nodes of the input files n_<nM>_id_<i>.txt of data/input_root_relaxation_100 with the representative formulation
+	 * The triangle inequalities of each new node are added to the model (see PartitionWithRepresentative.addLastNodeToModel())
+	 */
+	public static void main(String[] args){
+
+		Cplex cplex = new Cplex();
+
+		int nm = 10;
+		int nM = 20;
+		int K = 4;
+
+		for(int i = 0 ; i <= 6 ; ++i){
+
+			try{
+				RepParam rp = new RepParam("data/input_root_relaxation_100/n_" + nM + "_id_" + i + ".txt", cplex, K, Triangle.USE, true, true, true);
+				rp.tilim = 600;
+
+				NodeSweep ns = new NodeSweep(rp, nm, nM);
+				ns.sweep();
+
+				for(int n = nm ; n <= nM ; ++n)
+					ComputeResults.log("\t" + ComputeResults.getDate() + " : NodeSweep (n,K,i) = (" + n + "," + K + "," + i + "): \t[relaxation, int] : [" + Math.round(ns.bestRelaxation[n - nm]) + ", " + Math.round(ns.bestInt[n - nm]) + "] (" + Math.round(ns.nodes[n - nm]) + " nodes, " + Math.round(ns.time[n - nm]) + "s)");
+
+			}catch(IloException e) {e.printStackTrace();}
+		}
+
+		cplex.end();
+	}
+
+}
@@ -0,0 +1,191 @@
+package mipstart;
+
+import formulation.interfaces.IFEdgeW;
+
+/**
+ * Partition of the nodes represented by the cluster of each node (<label>).
+ *
+ * The weight of each cluster (i.e., the sum of the weights of its edges) is stored so that the objective of the partition is known at any time.
+ * Moving a node from a cluster to another updates the weights of both clusters in O(n).
+ *
+ * This is the representation shared by the heuristics (see LocalSearch, PortfolioHeuristic, MultilevelHeuristic, ...).
+ * It is converted into the variables of a formulation only when a solution has to be given to cplex (see MIPStartExpansion).
+ *
+ * @author zach
+ *
+ */
+public class LabelledPartition {
+
+	/** Weight of each edge (symmetric) */
+	double[][] weight;
+
+	public int n;
+
+	/** Cluster of each node (between 0 and n-1) */
+	public int[] label;
+
+	/** Number of nodes in each cluster */
+	int[] size;
+
+	/** Sum of the weights of the edges inside each cluster */
+	double[] clusterWeight;
+
+	/** Number of non empty clusters */
+	public int clusterNb;
+
+	/** Sum of the weights of the edges inside the clusters */
+	public double objective;
+
+	/**
+	 * Create a partition in which all the nodes are in cluster 0
+	 * @param weight The weight of each edge (this array is not modified)
+	 */
+	public LabelledPartition(double[][] weight){
+
+		this.weight = weight;
+		this.n = weight.length;
+
+		label = new int[n];
+		size = new int[n];
+		clusterWeight = new double[n];
+
+		setLabels(label);
+	}
+
+	public LabelledPartition(IFEdgeW formulation){
+		this(LocalSearch.weights(formulation));
+	}
+
+	/**
+	 * Set the cluster of each node
+	 * @param newLabel Cluster of each node (between 0 and n-1 ; the array is copied)
+	 */
+	public void setLabels(int[] newLabel){
+
+		System.arraycopy(newLabel, 0, label, 0, n);
+
+		for(int c = 0 ; c < n ; ++c){
+			size[c] = 0;
+			clusterWeight[c] = 0.0;
+		}
+
+		objective = 0.0;
+		clusterNb = 0;
+
+		for(int i = 0 ; i < n ; ++i){
+
+			if(size[label[i]] == 0)
+				clusterNb++;
+
+			size[label[i]]++;
+
+			for(int j = 0 ; j < i ; ++j)
+				if(label[i] == label[j])
+					clusterWeight[label[i]] += weight[i][j];
+		}
+
+		for(int c = 0 ; c < n ; ++c)
+			objective += clusterWeight[c];
+	}
+
+	/**
+	 * @return The sum of the weights of the edges between node i and the other nodes of cluster c
+	 */
+	public double weightToCluster(int i, int c){
+
+		double result = 0.0;
+
+		for(int j = 0 ; j < n ; ++j)
+			if(j != i && label[j] == c)
+				result += weight[i][j];
+
+		return result;
+	}
+
+	/**
+	 * @return The variation of the objective if node i is moved into cluster c
+	 */
+	public double moveDelta(int i, int c){
+
+		if(label[i] == c)
+			return 0.0;
+
+		return weightToCluster(i, c) - weightToCluster(i, label[i]);
+	}
+
+	/**
+	 * Move node i into cluster c
+	 * @return The variation of the objective
+	 */
+	public double move(int i, int c){
+
+		int a = label[i];
+
+		if(a == c)
+			return 0.0;
+
+		double removed = weightToCluster(i, a);
+		double added = weightToCluster(i, c);
+
+		clusterWeight[a] -= removed;
+		clusterWeight[c] += added;
+		objective += added - removed;
+
+		size[a]--;
+
+		if(size[a] == 0)
+			clusterNb--;
+
+		if(size[c] == 0)
+			clusterNb++;
+
+		size[c]++;
+		label[i] = c;
+
+		return added - removed;
+	}
+
+	public int size(int c){
+		return size[c];
+	}
+
+	/**
+	 * @return The sum of the weights of the edges inside cluster c
+	 */
+	public double clusterWeight(int c){
+		return clusterWeight[c];
+	}
+
+	/**
+	 * @return Array which contains in position i the lowest node in the cluster of node i
+	 */
+	public int[] lowestNodes(){
+		return LocalSearch.lowestNodes(label);
+	}
+
+	/**
+	 * @return Array which contains in position i the cluster of node i, the clusters being numbered from 0 in the order of their lowest node (thus, the cluster of node i is at most i)
+	 */
+	public int[] compactLabels(){
+
+		int[] id = new int[n];
+		int[] result = new int[n];
+		int nb = 0;
+
+		for(int c = 0 ; c < n ; ++c)
+			id[c] = -1;
+
+		for(int i = 0 ; i < n ; ++i){
+
+			if(id[label[i]] == -1){
+				id[label[i]] = nb;
+				nb++;
+			}
+
+			result[i] = id[label[i]];
+		}
+
+		return result;
+	}
+
+}
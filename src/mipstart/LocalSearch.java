@@ -0,0 +1,445 @@
+package mipstart;
+
+import formulation.interfaces.IFEdgeVNodeVClusterNbEdgeW;
+import formulation.interfaces.IFEdgeW;
+
+/**
+ * Local search which improves a partition of the nodes (i.e., minimizes the sum of the weights of the edges inside the clusters).
+ *
+ * The partition is represented by the cluster of each node (<label>).
+ * For each node i and each cluster c, sum[i][c] contains the sum of the weights of the edges between i and the nodes of c (other than i).
+ * The variation of the objective induced by a move can thus be computed in O(1) and the array is updated in O(n) after each move.
+ *
+ * The neighbourhoods considered are (in this order):
+ * - move a node into another cluster (possibly a new one);
+ * - swap two nodes of different clusters;
+ * - merge two clusters;
+ * - split a cluster (a node is moved into a new cluster and the nodes of the cluster which are closer to the new cluster are moved with it).
+ * The first improving move is performed and the search stops when no neighbourhood contains an improving move.
+ *
+ * The number of clusters always remains between KMin and KMax. If the initial partition does not satisfy these bounds, it is first repaired.
+ *
+ * @author zach
+ *
+ */
+public class LocalSearch {
+
+	int n;
+	int KMin, KMax;
+
+	/** Weight of each edge (symmetric) */
+	double[][] weight;
+
+	/** Cluster of each node */
+	public int[] label;
+
+	/** Number of nodes in each cluster */
+	int[] size;
+
+	/** Number of non empty clusters */
+	public int clusterNb;
+
+	/** sum[i][c] is the sum of the weights of the edges between node i and the other nodes of cluster c */
+	double[][] sum;
+
+	/** Objective of the current partition */
+	public double objective;
+
+	/** Maximal number of improving moves */
+	public int maxMoveNb = Integer.MAX_VALUE;
+
+	/** Number of improving moves performed during the last call to run() */
+	public int moveNb = 0;
+
+	public double eps = 1E-9;
+
+	/** True if the swap neighbourhood is used (its exploration is in O(n^2)) */
+	public boolean useSwaps = true;
+
+	/**
+	 * @param weight The weight of each edge (this array is not modified)
+	 * @param KMin Minimal number of clusters
+	 * @param KMax Maximal number of clusters
+	 */
+	public LocalSearch(double[][] weight, int KMin, int KMax){
+
+		this.weight = weight;
+		this.n = weight.length;
+		this.KMin = Math.max(1, Math.min(KMin, n));
+		this.KMax = KMax < 1 ? n : Math.max(this.KMin, Math.min(KMax, n));
+	}
+
+	/**
+	 * @return The weights of the edges of a formulation in an n x n array
+	 */
+	public static double[][] weights(IFEdgeW formulation){
+
+		int n = formulation.n();
+		double[][] w = new double[n][n];
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j){
+				w[i][j] = formulation.edgeWeight(i, j);
+				w[j][i] = w[i][j];
+			}
+
+		return w;
+	}
+
+	/**
+	 * Improve a solution with the local search
+	 * @param mip The solution (modified by the method)
+	 * @param formulation The formulation of the solution
+	 * @return The objective of the improved solution
+	 */
+	public static double polish(SolutionManagerRepresentative mip, IFEdgeVNodeVClusterNbEdgeW formulation){
+
+		LocalSearch ls = new LocalSearch(weights(formulation), formulation.minimalNumberOfClusters(), formulation.maximalNumberOfClusters());
+		ls.setLabels(mip.labels());
+		ls.run();
+		mip.setLabels(ls.label);
+
+		return ls.objective;
+	}
+
+	/**
+	 * Improve a partition with the local search
+	 * @param weight The weight of each edge
+	 * @param KMin Minimal number of clusters
+	 * @param KMax Maximal number of clusters
+	 * @param label Cluster of each node (not modified)
+	 * @return The cluster of each node in the improved partition
+	 */
+	public static int[] improve(double[][] weight, int KMin, int KMax, int[] label){
+
+		LocalSearch ls = new LocalSearch(weight, KMin, KMax);
+		ls.setLabels(label);
+		ls.run();
+
+		return ls.label;
+	}
+
+	/**
+	 * @param label Cluster of each node
+	 * @return Array which contains in position i the lowest node in the cluster of node i
+	 */
+	public static int[] lowestNodes(int[] label){
+
+		int n = label.length;
+		int[] lowestOfCluster = new int[n];
+		int[] result = new int[n];
+
+		for(int c = 0 ; c < n ; ++c)
+			lowestOfCluster[c] = -1;
+
+		for(int i = 0 ; i < n ; ++i){
+
+			if(lowestOfCluster[label[i]] == -1)
+				lowestOfCluster[label[i]] = i;
+
+			result[i] = lowestOfCluster[label[i]];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Set the initial partition
+	 * @param initialLabel Cluster of each node (between 0 and n-1, the clusters do not need to be numbered consecutively)
+	 */
+	public void setLabels(int[] initialLabel){
+
+		/* Renumber the clusters from 0 */
+		int[] id = new int[n];
+		clusterNb = 0;
+
+		for(int i = 0 ; i < n ; ++i)
+			id[i] = -1;
+
+		label = new int[n];
+
+		for(int i = 0 ; i < n ; ++i){
+
+			int l = initialLabel[i];
+
+			if(id[l] == -1){
+				id[l] = clusterNb;
+				clusterNb++;
+			}
+
+			label[i] = id[l];
+		}
+
+		int capacity = Math.max(clusterNb, KMax);
+		size = new int[capacity];
+		sum = new double[n][capacity];
+		objective = 0.0;
+
+		for(int i = 0 ; i < n ; ++i){
+			size[label[i]]++;
+
+			for(int j = 0 ; j < n ; ++j)
+				if(j != i)
+					sum[i][label[j]] += weight[i][j];
+
+			objective += sum[i][label[i]] / 2;
+		}
+	}
+
+	/**
+	 * Repair the partition if necessary and perform improving moves until a local optimum is reached
+	 * @return The objective of the final partition
+	 */
+	public double run(){
+
+		moveNb = 0;
+		repair();
+
+		boolean improved = true;
+
+		while(improved && moveNb < maxMoveNb)
+			improved = movePass() || (useSwaps && swapPass()) || mergePass() || splitPass();
+
+		return objective;
+	}
+
+	/**
+	 * Merge or split clusters until the number of clusters is between KMin and KMax
+	 */
+	private void repair(){
+
+		while(clusterNb > KMax){
+
+			int[] pair = bestMerge();
+			merge(pair[0], pair[1]);
+		}
+
+		while(clusterNb < KMin){
+
+			/* Move into a new cluster the node whose move is the least expensive */
+			int bestNode = -1;
+			double bestDelta = Double.MAX_VALUE;
+
+			for(int i = 0 ; i < n ; ++i)
+				if(size[label[i]] > 1 && -sum[i][label[i]] < bestDelta){
+					bestDelta = -sum[i][label[i]];
+					bestNode = i;
+				}
+
+			move(bestNode, emptyCluster());
+		}
+	}
+
+	/**
+	 * Move node i into cluster c and update the sums
+	 */
+	private void move(int i, int c){
+
+		int a = label[i];
+
+		objective += sum[i][c] - sum[i][a];
+
+		if(size[c] == 0)
+			clusterNb++;
+
+		size[a]--;
+		size[c]++;
+
+		if(size[a] == 0)
+			clusterNb--;
+
+		label[i] = c;
+
+		for(int j = 0 ; j < n ; ++j)
+			if(j != i){
+				sum[j][a] -= weight[i][j];
+				sum[j][c] += weight[i][j];
+			}
+	}
+
+	/**
+	 * @return The id of an empty cluster (-1 if there is none)
+	 */
+	private int emptyCluster(){
+
+		for(int c = 0 ; c < size.length ; ++c)
+			if(size[c] == 0)
+				return c;
+
+		return -1;
+	}
+
+	/**
+	 * Find for each node the best cluster in which it can be moved and perform the first improving move
+	 * @return True if a move has been performed
+	 */
+	private boolean movePass(){
+
+		int empty = clusterNb < KMax ? emptyCluster() : -1;
+
+		for(int i = 0 ; i < n ; ++i){
+
+			int a = label[i];
+
+			/* A node alone in its cluster can only be moved if the number of clusters can decrease */
+			if(size[a] == 1 && clusterNb <= KMin)
+				continue;
+
+			int bestCluster = -1;
+			double bestDelta = -eps;
+
+			for(int c = 0 ; c < size.length ; ++c)
+				if(c != a && (size[c] > 0 || (c == empty && size[a] > 1))){
+
+					double delta = sum[i][c] - sum[i][a];
+
+					if(delta < bestDelta){
+						bestDelta = delta;
+						bestCluster = c;
+					}
+				}
+
+			if(bestCluster != -1){
+				move(i, bestCluster);
+				moveNb++;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Perform the first improving swap of two nodes in different clusters
+	 * @return True if a swap has been performed
+	 */
+	private boolean swapPass(){
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j){
+
+				int a = label[i];
+				int b = label[j];
+
+				if(a != b){
+
+					double delta = sum[i][b] - sum[i][a] + sum[j][a] - sum[j][b] - 2 * weight[i][j];
+
+					if(delta < -eps){
+						move(i, b);
+						move(j, a);
+						moveNb++;
+						return true;
+					}
+				}
+			}
+
+		return false;
+	}
+
+	/** Variation of the objective induced by the last merge returned by bestMerge() */
+	private double bestMergeDelta;
+
+	/**
+	 * @return The two clusters whose merge increases the objective the least
+	 */
+	private int[] bestMerge(){
+
+		int K = size.length;
+
+		/* between[a][b] is the sum of the weights of the edges between clusters a and b */
+		double[][] between = new double[K][K];
+
+		for(int i = 0 ; i < n ; ++i)
+			for(int b = 0 ; b < K ; ++b)
+				between[label[i]][b] += sum[i][b];
+
+		int[] best = null;
+		bestMergeDelta = Double.MAX_VALUE;
+
+		for(int a = 0 ; a < K ; ++a)
+			if(size[a] > 0)
+				for(int b = 0 ; b < a ; ++b)
+					if(size[b] > 0 && between[a][b] < bestMergeDelta){
+						bestMergeDelta = between[a][b];
+						best = new int[]{a, b};
+					}
+
+		return best;
+	}
+
+	/**
+	 * Merge two clusters
+	 */
+	private void merge(int a, int b){
+
+		for(int i = 0 ; i < n ; ++i)
+			if(label[i] == b)
+				move(i, a);
+	}
+
+	/**
+	 * Perform the best merge of two clusters if it is improving
+	 * @return True if a merge has been performed
+	 */
+	private boolean mergePass(){
+
+		if(clusterNb <= KMin)
+			return false;
+
+		int[] pair = bestMerge();
+
+		if(pair == null || bestMergeDelta >= -eps)
+			return false;
+
+		merge(pair[0], pair[1]);
+		moveNb++;
+
+		return true;
+	}
+
+	/**
+	 * Try to split each cluster in two: its node with the greatest sum is moved into a new cluster, then each node of the cluster closer to the new cluster is moved into it.
+	 * The first improving split is kept.
+	 * @return True if a split has been performed
+	 */
+	private boolean splitPass(){
+
+		if(clusterNb >= KMax)
+			return false;
+
+		int e = emptyCluster();
+
+		for(int a = 0 ; a < size.length ; ++a)
+			if(size[a] > 1){
+
+				double before = objective;
+
+				/* Find the seed of the new cluster */
+				int seed = -1;
+
+				for(int i = 0 ; i < n ; ++i)
+					if(label[i] == a && (seed == -1 || sum[i][a] > sum[seed][a]))
+						seed = i;
+
+				move(seed, e);
+
+				for(int i = 0 ; i < n ; ++i)
+					if(label[i] == a && size[a] > 1 && sum[i][e] - sum[i][a] < -eps)
+						move(i, e);
+
+				if(objective < before - eps){
+					moveNb++;
+					return true;
+				}
+
+				/* Cancel the split */
+				for(int i = 0 ; i < n ; ++i)
+					if(label[i] == e)
+						move(i, a);
+			}
+
+		return false;
+	}
+
+}
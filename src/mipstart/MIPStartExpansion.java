@@ -0,0 +1,272 @@
+package mipstart;
+
+import java.util.Arrays;
+
+import cplex.Cplex;
+import formulation.Partition;
+import formulation.PartitionWithTildes;
+import formulation.PartitionXY;
+import formulation.PartitionXY2;
+import formulation.interfaces.IFEdgeVNodeVClusterNbEdgeW;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+
+/**
+ * Conversion of a LabelledPartition into the variables of a formulation.
+ *
+ * The array of variables <var> is created once for a formulation (in the same order as in SolutionManagerRepresentative, SolutionManagerTildes and SolutionManagerXY).
+ * Each call to expand() directly writes the values of a partition in <val> (the position of each variable is computed, no map is used), such that a same expansion can be given to cplex at each iteration of a heuristic without creating new arrays.
+ *
+ * The formulations considered are:
+ * - representative (PartitionWithRepresentative): the representative of a cluster is its lowest node;
+ * - tildes (PartitionWithTildes): as for the representative formulation and each node is in the cluster of its representative;
+ * - XY (PartitionXY): the clusters are numbered in the order of their lowest node (the partition must contain maxClusterId clusters);
+ * - XY2 (PartitionXY2): the id of a cluster is its lowest node.
+ *
+ * @author zach
+ *
+ */
+public class MIPStartExpansion {
+
+	public enum Type{REPRESENTATIVE, TILDES, XY, XY2}
+
+	public Type type;
+
+	public IloNumVar[] var;
+	public double[] val;
+
+	/** Objective of the last partition expanded */
+	public double objective;
+
+	int n;
+
+	/** Position of the first edge variable in <var> */
+	int edgeStart;
+
+	/** Position of the first node cluster variable in <var> */
+	int nodeClusterStart;
+
+	/** Number of clusters of the XY formulations */
+	int maxClusterId;
+
+	/** Position in <var> of the variable equal to the number of edges in the clusters (see Partition.nn1Edges) ; -1 if the formulation does not contain it */
+	int nn1EdgesIndex = -1;
+
+	Cplex cplex;
+
+	public MIPStartExpansion(IFEdgeVNodeVClusterNbEdgeW formulation) throws IloException{
+
+		n = formulation.n();
+		cplex = formulation.getCplex();
+
+		if(formulation instanceof PartitionWithTildes){
+
+			PartitionWithTildes f = (PartitionWithTildes)formulation;
+			type = Type.TILDES;
+
+			/* The representative variables of nodes 0, 1 and 2 are not used */
+			edgeStart = Math.max(0, n - 3);
+			nodeClusterStart = edgeStart + n * (n - 1) / 2;
+			var = new IloNumVar[nodeClusterStart + Math.max(0, (n - 1) * (n - 2) / 2)];
+
+			for(int i = 3 ; i < n ; ++i)
+				var[i - 3] = f.nodeVar(i);
+
+			setEdgeVariables(formulation);
+
+			int v = nodeClusterStart;
+
+			for(int i = 2 ; i < n ; ++i)
+				for(int j = 1 ; j < i ; ++j){
+					var[v] = f.nodeInClusterVar(i, j);
+					v++;
+				}
+		}
+		else{
+
+			type = Type.REPRESENTATIVE;
+
+			edgeStart = n;
+			nodeClusterStart = n + n * (n - 1) / 2;
+			var = new IloNumVar[nodeClusterStart];
+
+			for(int i = 0 ; i < n ; ++i)
+				var[i] = formulation.nodeVar(i);
+
+			setEdgeVariables(formulation);
+		}
+
+		addNN_1EdgesVariable(formulation);
+		val = new double[var.length];
+	}
+
+	public MIPStartExpansion(PartitionXY formulation) throws IloException{
+
+		n = formulation.n();
+		cplex = formulation.getCplex();
+		type = formulation instanceof PartitionXY2 ? Type.XY2 : Type.XY;
+		maxClusterId = formulation.maxClusterId;
+
+		edgeStart = 0;
+		nodeClusterStart = n * (n - 1) / 2;
+		var = new IloNumVar[nodeClusterStart + n * maxClusterId];
+
+		int v = 0;
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j){
+				var[v] = formulation.edgeVar(i, j);
+				v++;
+			}
+
+		for(int i = 0 ; i < n ; ++i)
+			for(int k = 0 ; k < maxClusterId ; ++k){
+				var[v] = formulation.nodeInClusterVar(i, k);
+				v++;
+			}
+
+		addNN_1EdgesVariable(formulation);
+		val = new double[var.length];
+	}
+
+	/**
+	 * Add the variable of the NN_1 constraints at the end of <var> if the formulation contains it
+	 */
+	private void addNN_1EdgesVariable(Object formulation){
+
+		IloNumVar v = nn1EdgesVar(formulation);
+
+		if(v != null){
+			nn1EdgesIndex = var.length;
+			var = Arrays.copyOf(var, var.length + 1);
+			var[nn1EdgesIndex] = v;
+		}
+	}
+
+	/**
+	 * @return The variable equal to the number of edges in the clusters of a formulation (see Partition.nn1Edges) ; null if the formulation does not contain it
+	 */
+	static IloNumVar nn1EdgesVar(Object formulation){
+
+		if(formulation instanceof Partition)
+			return ((Partition)formulation).nn1Edges;
+
+		return null;
+	}
+
+	private void setEdgeVariables(IFEdgeVNodeVClusterNbEdgeW formulation) throws IloException{
+
+		int v = edgeStart;
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j){
+				var[v] = formulation.edgeVar(i, j);
+				v++;
+			}
+	}
+
+	/**
+	 * @return The position in <var> of edge (i, j) with i > j
+	 */
+	public int edgeIndex(int i, int j){
+		return edgeStart + i * (i - 1) / 2 + j;
+	}
+
+	/**
+	 * Get the partition of an integer solution of the formulation
+	 * @param value Value of each variable of <var> (e.g., obtained with IloCplex.getValues(var))
+	 * @return Array which contains in position i the lowest node in the cluster of node i
+	 */
+	public int[] labels(double[] value){
+
+		int[] result = new int[n];
+
+		for(int i = 0 ; i < n ; ++i){
+
+			result[i] = i;
+
+			for(int j = 0 ; j < i && result[i] == i ; ++j)
+				if(value[edgeIndex(i, j)] > 0.5)
+					result[i] = result[j];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Write the values of a partition in <val>
+	 * @param p The partition
+	 * @return <val>
+	 */
+	public double[] expand(LabelledPartition p){
+
+		Arrays.fill(val, 0.0);
+
+		int[] label = p.label;
+		int[] rep = p.lowestNodes();
+
+		/* Edge variables */
+		int edgeNb = 0;
+
+		for(int i = 1 ; i < n ; ++i){
+
+			int v = edgeIndex(i, 0);
+
+			for(int j = 0 ; j < i ; ++j)
+				if(label[i] == label[j]){
+					val[v + j] = 1.0;
+					edgeNb++;
+				}
+		}
+
+		if(nn1EdgesIndex != -1)
+			val[nn1EdgesIndex] = edgeNb;
+
+		switch(type){
+
+		case REPRESENTATIVE:
+			for(int i = 0 ; i < n ; ++i)
+				if(rep[i] == i)
+					val[i] = 1.0;
+			break;
+
+		case TILDES:
+			for(int i = 0 ; i < n ; ++i)
+				if(rep[i] == i){
+					if(i >= 3)
+						val[i - 3] = 1.0;
+				}
+
+				/* The node cluster variable (i, 0) is the edge variable (i, 0) */
+				else if(rep[i] != 0)
+					val[nodeClusterStart + (i - 1) * (i - 2) / 2 + rep[i] - 1] = 1.0;
+			break;
+
+		case XY:
+			int[] cluster = p.compactLabels();
+
+			for(int i = 0 ; i < n ; ++i)
+				if(cluster[i] < maxClusterId)
+					val[nodeClusterStart + i * maxClusterId + cluster[i]] = 1.0;
+			break;
+
+		case XY2:
+			for(int i = 0 ; i < n ; ++i)
+				val[nodeClusterStart + i * maxClusterId + rep[i]] = 1.0;
+			break;
+		}
+
+		objective = p.objective;
+
+		return val;
+	}
+
+	/**
+	 * Give a partition to cplex as a MIP start
+	 * @param p The partition
+	 */
+	public void addMIPStart(LabelledPartition p){
+		cplex.addMIPStart(var, expand(p));
+	}
+
+}
@@ -0,0 +1,249 @@
+package mipstart;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import formulation.Partition;
+import formulation.PartitionParam;
+import formulation.interfaces.IFEdgeVNodeVClusterNbEdgeW;
+import ilog.concert.IloException;
+
+/**
+ * Multilevel heuristic which creates a partition directly from the weights of the edges (i.e., without any relaxation).
+ * It can thus be used on large instances before any formulation is created (see readWeights()).
+ *
+ * - Coarsening: the nodes are matched by pairs (each node is matched with the unmatched node with which its edge has the lowest weight, i.e., the node to which it is the most attracted) and each pair is contracted into one node.
+ * The weight of an edge between two contracted nodes is the sum of the weights of the edges between their nodes.
+ * The graph is coarsened until it contains at most <coarsestSize> nodes or until a level does not significantly reduce the number of nodes.
+ * - The coarsest graph is partitioned by LocalSearch from <coarsestRestartNb> random partitions.
+ * - Uncoarsening: the partition of each level is projected on the previous level and refined by LocalSearch.
+ *
+ * @author zach
+ *
+ */
+public class MultilevelHeuristic {
+
+	double[][] weight;
+	int KMin, KMax;
+
+	/** Maximal number of nodes of the coarsest graph (if it is lower than 1, max(50, 2 KMax) is used) */
+	public int coarsestSize = 0;
+
+	/** Number of random partitions improved by LocalSearch on the coarsest graph */
+	public int coarsestRestartNb = 20;
+
+	/** The swap neighbourhood of LocalSearch is only used on the levels which contain at most this number of nodes */
+	public int swapLimit = 500;
+
+	/** A level must contain at most this proportion of the nodes of the previous level (otherwise the coarsening stops) */
+	public double minimalReduction = 0.9;
+
+	public Random random = new Random(0);
+
+	/** Number of levels of the last resolution (including the initial graph) */
+	public int levelNb = 0;
+
+	/** Cluster of each node in the last partition found */
+	public int[] label = null;
+
+	/** Objective of the last partition found */
+	public double objective = Double.MAX_VALUE;
+
+	/**
+	 * @param weight The weight of each edge (symmetric n x n array)
+	 * @param KMin Minimal number of clusters
+	 * @param KMax Maximal number of clusters
+	 */
+	public MultilevelHeuristic(double[][] weight, int KMin, int KMax){
+		this.weight = weight;
+		this.KMin = KMin;
+		this.KMax = KMax < 1 ? weight.length : KMax;
+	}
+
+	/**
+	 * Read the weights of the edges from the input file of the parameters (as a formulation would)
+	 * @param param The parameters of the formulation
+	 * @return The weight of each edge
+	 */
+	public static double[][] readWeights(PartitionParam param){
+		return Partition.readDissimilarityInputFile(param);
+	}
+
+	/**
+	 * Find a partition
+	 * @return The cluster of each node
+	 */
+	public int[] solve(){
+
+		int target = coarsestSize >= 1 ? coarsestSize : Math.max(50, 2 * KMax);
+		target = Math.max(target, KMax);
+
+		/* Coarsening */
+		ArrayList<double[][]> levels = new ArrayList<>();
+		ArrayList<int[]> coarseNode = new ArrayList<>();
+
+		double[][] w = weight;
+		levels.add(w);
+
+		while(w.length > target){
+
+			int[] map = match(w);
+			int m = 0;
+
+			for(int i = 0 ; i < map.length ; ++i)
+				m = Math.max(m, map[i] + 1);
+
+			if(m > minimalReduction * w.length)
+				break;
+
+			w = contract(w, map, m);
+			levels.add(w);
+			coarseNode.add(map);
+		}
+
+		levelNb = levels.size();
+
+		/* Partition the coarsest graph */
+		int n = w.length;
+		int K = Math.min(KMax, n);
+		int[] current = null;
+		double currentObjective = Double.MAX_VALUE;
+
+		for(int r = 0 ; r < Math.max(1, coarsestRestartNb) ; ++r){
+
+			int[] l = new int[n];
+
+			for(int i = 0 ; i < n ; ++i)
+				l[i] = i < K ? i : random.nextInt(K);
+
+			LocalSearch ls = new LocalSearch(w, KMin, KMax);
+			ls.useSwaps = n <= swapLimit;
+			ls.setLabels(l);
+			ls.run();
+
+			if(ls.objective < currentObjective){
+				currentObjective = ls.objective;
+				current = ls.label.clone();
+			}
+		}
+
+		/* Uncoarsening */
+		for(int level = coarseNode.size() - 1 ; level >= 0 ; --level){
+
+			int[] map = coarseNode.get(level);
+			double[][] fineWeight = levels.get(level);
+			int[] fineLabel = new int[map.length];
+
+			for(int i = 0 ; i < map.length ; ++i)
+				fineLabel[i] = current[map[i]];
+
+			LocalSearch ls = new LocalSearch(fineWeight, KMin, KMax);
+			ls.useSwaps = map.length <= swapLimit;
+			ls.setLabels(fineLabel);
+			ls.run();
+
+			current = ls.label.clone();
+			currentObjective = ls.objective;
+		}
+
+		/* The objective of a coarse level does not contain the weights inside the coarse nodes */
+		if(coarseNode.size() == 0)
+			objective = currentObjective;
+		else{
+			LocalSearch ls = new LocalSearch(weight, KMin, KMax);
+			ls.setLabels(current);
+			objective = ls.objective;
+		}
+
+		label = current;
+		return label;
+	}
+
+	/**
+	 * Get the last partition found in a solution manager
+	 * @param formulation The formulation of the solution
+	 * @throws IloException
+	 */
+	public SolutionManagerRepresentative getSolution(IFEdgeVNodeVClusterNbEdgeW formulation) throws IloException{
+
+		if(label == null)
+			solve();
+
+		SolutionManagerRepresentative mip = new SolutionManagerRepresentative(formulation);
+		mip.setLabels(label);
+
+		return mip;
+	}
+
+	/**
+	 * Match the nodes by pairs: the nodes are considered in a random order and each unmatched node is matched with the unmatched node with which its edge has the lowest weight, provided that this weight is negative (i.e., the nodes attract each other)
+	 * @param w The weights of the edges
+	 * @return The node of the coarse graph which contains each node
+	 */
+	private int[] match(double[][] w){
+
+		int n = w.length;
+		int[] map = new int[n];
+		int[] order = new int[n];
+
+		for(int i = 0 ; i < n ; ++i){
+			map[i] = -1;
+			order[i] = i;
+		}
+
+		/* Random order */
+		for(int i = n - 1 ; i > 0 ; --i){
+			int j = random.nextInt(i + 1);
+			int temp = order[i];
+			order[i] = order[j];
+			order[j] = temp;
+		}
+
+		int m = 0;
+
+		for(int u : order)
+			if(map[u] == -1){
+
+				int best = -1;
+				double bestWeight = 0;
+
+				for(int v = 0 ; v < n ; ++v)
+					if(v != u && map[v] == -1 && w[u][v] < bestWeight){
+						bestWeight = w[u][v];
+						best = v;
+					}
+
+				/* If no edge between u and an unmatched node has a negative weight, u remains alone in its coarse node */
+				map[u] = m;
+
+				if(best != -1)
+					map[best] = m;
+
+				m++;
+			}
+
+		return map;
+	}
+
+	/**
+	 * Contract the nodes of a graph
+	 * @param w The weights of the edges
+	 * @param map The node of the coarse graph which contains each node
+	 * @param m Number of nodes of the coarse graph
+	 * @return The weights of the edges of the coarse graph
+	 */
+	private static double[][] contract(double[][] w, int[] map, int m){
+
+		double[][] result = new double[m][m];
+
+		for(int i = 1 ; i < w.length ; ++i)
+			for(int j = 0 ; j < i ; ++j)
+				if(map[i] != map[j]){
+					result[map[i]][map[j]] += w[i][j];
+					result[map[j]][map[i]] += w[i][j];
+				}
+
+		return result;
+	}
+
+}
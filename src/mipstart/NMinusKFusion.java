@@ -1,181 +1,167 @@
 package mipstart;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.Random;
-import java.util.TreeSet;
+import java.util.Arrays;
 
 import formulation.interfaces.IFEdgeVNodeVClusterNbEdgeW;
 import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
 
 /**
  * Given a non integer solution, sort all the edges variables from the largest to the smallest.
  * For each edge (i,j) (starting with the largest) while less than n-K nodes have been regrouped
  * 		If i and j are not already in the same cluster
  * 			Regroup them
- * @author zach 
+ *
+ * Each edge is packed in a long: the 32 highest bits contain its value (such that the largest values come first) and the 32 lowest bits contain its index.
+ * The edges are sorted once with Arrays.parallelSort() and the clusters are obtained with a union-find structure (union by rank and path compression).
+ * The arrays are allocated once in the constructor so that the heuristic can be called at each iteration of a cutting plane.
+ *
+ * @author zach
  *
  */
 public class NMinusKFusion implements AbstractMIPStartGetter{
 
 	int mergedNodes = 0;
 	IFEdgeVNodeVClusterNbEdgeW  s;
-	
-	public NMinusKFusion(IFEdgeVNodeVClusterNbEdgeW s){
-		this.s = s;
-	}
 
-	public SolutionManagerRepresentative getMIPStart() throws IloException{
-
-		SolutionManagerRepresentative mip = new SolutionManagerRepresentative(s);
+	/** True if the solution is improved by LocalSearch before being returned */
+	public boolean useLocalSearch = true;
 
-		TreeSet<Edge> t = new TreeSet<Edge>(new Comparator<Edge>(){
+	/** Edge variables (i, j) with i > j in the order i = 1..n-1, j = 0..i-1 */
+	IloNumVar[] edgeVar;
 
+	/** Node i and node j of each edge of <edgeVar> */
+	int[] edgeI, edgeJ;
 
-			Random random = new Random();
+	/** Packed edges (value and index) */
+	long[] keys;
 
-			@Override
-			public int compare(Edge o1, Edge o2) {
+	/* Union-find structure */
+	int[] parent;
+	int[] rank;
 
-				int result = 0;
-				try {
-					result = o2.getValue() - o1.getValue();
-				} catch (IloException e) {
-					e.printStackTrace();
-				}
+	/** Lowest node of each root */
+	int[] lowest;
 
-				if(result == 0){
+	/** Cluster of each node (i.e., its lowest node) in the last solution computed */
+	public int[] label;
 
-					result = random.nextInt(3) - 1;
-				}
+	public NMinusKFusion(IFEdgeVNodeVClusterNbEdgeW s) throws IloException{
+		this.s = s;
 
-				return result;
+		int n = s.n();
+		edgeVar = new IloNumVar[n * (n - 1) / 2];
+		edgeI = new int[edgeVar.length];
+		edgeJ = new int[edgeVar.length];
+		int v = 0;
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j){
+				edgeVar[v] = s.edgeVar(i, j);
+				edgeI[v] = i;
+				edgeJ[v] = j;
+				v++;
 			}
-		});
-
-		for(int i = 0 ; i < s.n() ; ++i)
-			for(int j = 0 ; j < i ; ++j)
-				t.add(new Edge(i,j));
 
-		Iterator<Edge> it = t.iterator();
+		keys = new long[edgeVar.length];
+		parent = new int[n];
+		rank = new int[n];
+		lowest = new int[n];
+		label = new int[n];
+	}
 
-		Node[] nodes = new Node[s.n()];
+	public SolutionManagerRepresentative getMIPStart() throws IloException{
 
-		for(int i = 0 ; i < s.n() ; ++i){
-			nodes[i] = new Node(i);
-		}
+		SolutionManagerRepresentative mip = new SolutionManagerRepresentative(s);
 
-		/* Regroup the nodes until K clusters is reached */
-		while(it.hasNext() && mergedNodes < s.n() - s.maximalNumberOfClusters()){
-			Edge e = it.next();
-			nodes[e.i].union(nodes[e.j]);
-		}
-		ArrayList<Integer> rep = new ArrayList<Integer>();		
-		/* For each edge */
-		for(int i = 0 ; i < s.n() ; ++i){
+		mip.setLabels(merge(s.variableGetter().getValues(edgeVar)));
 
-			/* Set the representative variable of the root of nodes[i] to 1 */
-			mip.setRep(nodes[i].find().id, 1.0);
+		if(useLocalSearch)
+			LocalSearch.polish(mip, s);
 
-			for(int j = 0 ; j < i ; ++j)
+		return mip;
 
-				/* If they are in the same cluster */
-				if(nodes[i].find() == nodes[j].find()){
+	}
 
-					/* Set the variable x_i,j to 1 */
-					mip.setEdge(i, j, 1.0);
+	/**
+	 * Regroup the nodes by considering the edges by decreasing values until K clusters remain
+	 * @param edgeValue Value of each edge of <edgeVar>
+	 * @return The cluster of each node (i.e., the lowest node of its cluster)
+	 */
+	public int[] merge(double[] edgeValue){
 
-				}
+		int n = s.n();
 
-			if(!rep.contains(nodes[i].find().id))
-				rep.add(nodes[i].find().id);
-			System.out.println("Rep de " + i + " est " + nodes[i].find().id);
+		/* Pack the edges. For a non negative float, the order of the bits is the order of the values. */
+		for(int v = 0 ; v < keys.length ; ++v){
+			int bits = Float.floatToIntBits((float)Math.max(0.0, edgeValue[v]));
+			keys[v] = ((long)(Integer.MAX_VALUE - bits) << 32) | v;
 		}
 
-		System.out.println("Rep: " + rep.toString());
-		System.out.println("merged: " + mergedNodes);
+		Arrays.parallelSort(keys);
 
-		return mip;
+		for(int i = 0 ; i < n ; ++i){
+			parent[i] = i;
+			rank[i] = 0;
+			lowest[i] = i;
+		}
 
-	}
+		/* Regroup the nodes until K clusters is reached */
+		mergedNodes = 0;
 
+		for(int e = 0 ; e < keys.length && mergedNodes < n - s.maximalNumberOfClusters() ; ++e){
 
-	public class Edge{
+			int v = (int)(keys[e] & 0xFFFFFFFFL);
+			union(edgeI[v], edgeJ[v]);
+		}
 
-		int i;
-		int j;
+		for(int i = 0 ; i < n ; ++i)
+			label[i] = lowest[find(i)];
 
-		public Edge(int i, int j){
-			this.i = i;
-			this.j = j;
-		}
+		return label;
+	}
 
-		/**
-		 * Value of the edge in the current solution
-		 */
-		private int value = -1;
+	private int find(int i){
 
-		public int getValue() throws IloException{
+		int root = i;
 
-			if(value == -1)
-				value  = (int)(1000 * s.variableGetter().getValue(s.edgeVar(i,j)));
+		while(parent[root] != root)
+			root = parent[root];
 
-			return value;
+		/* Path compression */
+		while(parent[i] != root){
+			int next = parent[i];
+			parent[i] = root;
+			i = next;
 		}
 
+		return root;
 	}
 
-	public class Node{
-		int id;
-		Node parent = this;
-		int rank = 0;
+	private void union(int i, int j){
 
-		public Node(int i){
-			this.id = i;
-		}
+		int ri = find(i);
+		int rj = find(j);
 
+		if(ri != rj){
 
-		public Node find(){
+			mergedNodes++;
 
-			if(parent != this)
-				parent = parent.find();
-			return parent;
-		}
+			int smaller = ri;
+			int larger = rj;
 
-		public void union(Node e){
-			System.out.println("merge: " + e.id + " " + this.id);			
-			Node eRoot = e.find();
-			Node nRoot = this.find();
-
-			if(eRoot != nRoot){
-
-				mergedNodes++;
-				Node smaller = null;
-				Node larger = null;
-
-				if(eRoot.rank < nRoot.rank){
-					smaller = eRoot;
-					larger = nRoot;
-				}
-				else{
-					smaller = nRoot;
-					larger = eRoot;
-
-					/* If the tree have the same size, the rank is incremented */
-					if(eRoot.rank == nRoot.rank)
-						larger.rank++;
-				}
-
-				smaller.parent = larger;
-
-				/* Ensure that the lowest node is still at the top */
-				if(smaller.id < larger.id){
-					int temp = smaller.id;
-					smaller.id = larger.id;
-					larger.id = temp;
-				}
+			if(rank[ri] > rank[rj]){
+				smaller = rj;
+				larger = ri;
 			}
+			/* If the trees have the same rank, the rank is incremented */
+			else if(rank[ri] == rank[rj])
+				rank[larger]++;
+
+			parent[smaller] = larger;
+
+			/* Ensure that the lowest node of the tree is known */
+			lowest[larger] = Math.min(lowest[larger], lowest[smaller]);
 		}
 	}
 }
@@ -0,0 +1,287 @@
+package mipstart;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import formulation.interfaces.IFEdgeVNodeVClusterNbEdgeW;
+import ilog.concert.IloException;
+
+/**
+ * Primal heuristic which runs in background an iterated local search on the weights of the edges (independently of any relaxation).
+ *
+ * Each worker repeats:
+ * - perturb its current partition by moving random nodes into random clusters;
+ * - improve it with LocalSearch;
+ * - keep it if it is better than its current partition (or, with probability <acceptWorse>, even if it is not).
+ * The workers are diversified by their random seed and their perturbation strength (from <minPerturbation> to <maxPerturbation> of the nodes).
+ * A worker which does not improve the best partition during <restartPeriod> iterations restarts from the best partition.
+ *
+ * The best partition is shared by all the workers. It is not given directly to cplex (which can not be modified while it is solving): it is used by the cutting plane between two iterations (see AbstractCuttingPlane.solve()) and given to cplex during the branch and cut by PortfolioHeuristicCallback.
+ *
+ * @author zach
+ *
+ */
+public class PortfolioHeuristic {
+
+	double[][] weight;
+	int KMin, KMax;
+	int threadNb;
+
+	/** Minimal and maximal proportion of the nodes moved by a perturbation */
+	public double minPerturbation = 0.02;
+	public double maxPerturbation = 0.2;
+
+	/** Probability to accept a partition which is not better than the current one */
+	public double acceptWorse = 0.05;
+
+	/** Number of iterations without improvement of the best partition after which a worker restarts from it */
+	public int restartPeriod = 200;
+
+	ExecutorService executor = null;
+	private volatile boolean stopped = false;
+
+	/* Best partition found */
+	private int[] bestLabel = null;
+	private double bestObjective = Double.MAX_VALUE;
+
+	/** Partition submitted by offer() which has not yet been improved by a worker */
+	private AtomicReference<int[]> seed = new AtomicReference<>();
+
+	/** Number of improvements of the best partition */
+	private volatile int improvementNb = 0;
+
+	/** Number of iterations performed by all the workers */
+	public AtomicLong iterationNb = new AtomicLong();
+
+	/**
+	 * @param weight The weight of each edge
+	 * @param KMin Minimal number of clusters
+	 * @param KMax Maximal number of clusters
+	 * @param threadNb Number of workers (if it is lower than 1, one worker per available processor)
+	 */
+	public PortfolioHeuristic(double[][] weight, int KMin, int KMax, int threadNb){
+		this.weight = weight;
+		this.KMin = KMin;
+		this.KMax = KMax;
+		this.threadNb = threadNb < 1 ? Runtime.getRuntime().availableProcessors() : threadNb;
+	}
+
+	public PortfolioHeuristic(IFEdgeVNodeVClusterNbEdgeW formulation, int threadNb){
+		this(LocalSearch.weights(formulation), formulation.minimalNumberOfClusters(), formulation.maximalNumberOfClusters(), threadNb);
+	}
+
+	/**
+	 * Start the workers
+	 * @param initialLabel Initial partition of the workers (null if they start from random partitions)
+	 */
+	public void start(int[] initialLabel){
+
+		if(executor != null)
+			return;
+
+		if(initialLabel != null)
+			offer(initialLabel);
+
+		stopped = false;
+		executor = Executors.newFixedThreadPool(threadNb, new ThreadFactory(){
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "portfolio heuristic");
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			}
+		});
+
+		for(int w = 0 ; w < threadNb ; ++w){
+
+			double strength = threadNb == 1 ? minPerturbation : minPerturbation + (maxPerturbation - minPerturbation) * w / (threadNb - 1);
+			final Worker worker = new Worker(w, strength);
+
+			executor.submit(new Runnable(){
+
+				@Override
+				public void run() {
+					worker.run();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Stop the workers
+	 */
+	public void stop(){
+
+		stopped = true;
+
+		if(executor != null){
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	public boolean isRunning(){
+		return executor != null;
+	}
+
+	/**
+	 * Submit a partition found by another heuristic.
+	 * The partition is only stored: the first worker which is available improves it with LocalSearch (it then becomes the best partition if it is better).
+	 * A partition which has not yet been taken by a worker is replaced by the new one.
+	 * @param label Cluster of each node
+	 */
+	public void offer(int[] label){
+		seed.set(label.clone());
+	}
+
+	private synchronized void publish(int[] label, double objective){
+
+		if(objective < bestObjective - 1E-9){
+			bestObjective = objective;
+			bestLabel = label.clone();
+			improvementNb++;
+		}
+	}
+
+	/**
+	 * @return The number of improvements of the best partition (enables to test if the best partition has changed)
+	 */
+	public int improvementNb(){
+		return improvementNb;
+	}
+
+	public synchronized double bestObjective(){
+		return bestObjective;
+	}
+
+	/**
+	 * @return A copy of the best partition (null if no partition has been found)
+	 */
+	public synchronized int[] bestLabel(){
+		return bestLabel == null ? null : bestLabel.clone();
+	}
+
+	/**
+	 * Get the best partition in a solution manager
+	 * @param formulation The formulation of the solution
+	 * @return The solution (null if no partition has been found)
+	 * @throws IloException
+	 */
+	public SolutionManagerRepresentative getBestSolution(IFEdgeVNodeVClusterNbEdgeW formulation) throws IloException{
+
+		int[] label = bestLabel();
+
+		if(label == null)
+			return null;
+
+		SolutionManagerRepresentative mip = new SolutionManagerRepresentative(formulation);
+		mip.setLabels(label);
+
+		return mip;
+	}
+
+	/**
+	 * Iterated local search performed by a thread
+	 */
+	class Worker{
+
+		Random random;
+		double strength;
+
+		Worker(int id, double strength){
+			this.random = new Random(id);
+			this.strength = strength;
+		}
+
+		void run(){
+
+			int n = weight.length;
+			int K = Math.max(1, KMax < 1 ? n : Math.min(KMax, n));
+
+			/* Initial partition: the partition submitted by offer() if it exists, the best partition if it exists, a random one otherwise */
+			int[] current = seed.getAndSet(null);
+
+			if(current == null)
+				current = bestLabel();
+
+			if(current == null){
+				current = new int[n];
+
+				for(int i = 0 ; i < n ; ++i)
+					current[i] = i < K ? i : random.nextInt(K);
+			}
+
+			LocalSearch ls = new LocalSearch(weight, KMin, KMax);
+			ls.setLabels(current);
+			ls.run();
+
+			current = ls.label.clone();
+			double currentObjective = ls.objective;
+			publish(current, currentObjective);
+
+			int moved = Math.max(2, (int)(strength * n));
+			int iterationsWithoutImprovement = 0;
+			int lastImprovementNb = improvementNb;
+
+			while(!stopped && !Thread.currentThread().isInterrupted()){
+
+				/* Improve the partition submitted by offer() */
+				int[] submitted = seed.getAndSet(null);
+
+				if(submitted != null){
+					ls.setLabels(submitted);
+					ls.run();
+					publish(ls.label, ls.objective);
+
+					if(ls.objective < currentObjective - 1E-9){
+						current = ls.label.clone();
+						currentObjective = ls.objective;
+					}
+				}
+
+				/* Perturb the current partition */
+				int[] label = current.clone();
+
+				for(int m = 0 ; m < moved ; ++m)
+					label[random.nextInt(n)] = random.nextInt(K);
+
+				ls.setLabels(label);
+				ls.run();
+				iterationNb.incrementAndGet();
+
+				if(ls.objective < currentObjective - 1E-9 || random.nextDouble() < acceptWorse){
+					current = ls.label.clone();
+					currentObjective = ls.objective;
+					publish(current, currentObjective);
+				}
+
+				if(improvementNb != lastImprovementNb){
+					lastImprovementNb = improvementNb;
+					iterationsWithoutImprovement = 0;
+				}
+				else
+					iterationsWithoutImprovement++;
+
+				/* Restart from the best partition */
+				if(iterationsWithoutImprovement >= restartPeriod){
+
+					int[] best = bestLabel();
+
+					if(best != null){
+						current = best;
+						currentObjective = bestObjective();
+					}
+
+					iterationsWithoutImprovement = 0;
+				}
+			}
+		}
+	}
+
+}
@@ -1,33 +1,30 @@
 package mipstart;
 
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.Random;
-import java.util.TreeSet;
-
-import cutting_plane.CP_Separation;
-import formulation.PartitionWithRepresentative;
-import formulation.PartitionWithTildes;
-import formulation.RepParam;
-import formulation.TildeParam;
+
 import formulation.interfaces.IFEdgeVNodeVClusterNbEdgeW;
-import formulation.interfaces.IFormulation;
 import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
-import inequality_family.AbstractInequality;
-import inequality_family.Range;
-import variable.VariableGetter;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex;
+import ilog.cplex.IloCplex.IntParam;
 
 /**
  * Create an integer solution from a continuous solution. Find the K nodes with the greatest value of their representative variables and select them as representative.
  * Then repeat :
- * 
+ *
  * 		- For each edge between a representative <r> and a node <i> which is not yet assigned in a cluster : if x_r,i == 1, add i in the cluster of <r>
  * 		- If no such edge is found, merge the highest edge x_r,i
  * 		- If there is still unassigned nodes, solve the relaxation
- * 
+ *
  *  Until all the nodes are not assigned
+ *
+ * The heuristic is a dive on the relaxation of the formulation (which contains the inequalities already added, e.g., by a cutting plane):
+ * each assignment is imposed by changing the bounds of the edge variables and the relaxation is solved again with the dual simplex from the previous basis.
+ * The bounds are restored at the end of the dive and the relaxation is solved again so that the formulation is left in its initial state.
+ *
+ * The dive stops as soon as the relaxation becomes infeasible or its value is not lower than <incumbent> (the value of the best known solution).
+ * The remaining nodes are then greedily assigned to the cluster which minimizes the sum of the weights of their edges in the cluster.
+ *
  * @author zach
  *
  */
@@ -39,141 +36,153 @@ public class RepThenRelaxations implements AbstractMIPStartGetter{
 	public ArrayList<ArrayList<Integer>> clusters = new ArrayList<ArrayList<Integer>>();
 
 	/**
-	 * Inequalities added to the formulation (e.g. during a cutting plane)
+	 * Number of nodes which are not assigned to a cluster
 	 */
-	public ArrayList<CP_Separation<IFEdgeVNodeVClusterNbEdgeW>> sep_algo;
+	public int unassignedNodes;
 
-	/**
-	 * Parameters of the formulation
-	 */
-	RepParam param;
+	/** True if the solution is improved by LocalSearch before being returned */
+	public boolean useLocalSearch = true;
 
-	/**
-	 * Coefficients of the objective function of the current problem 
-	 */
-	double[][] objective;
+	/** Value of the best known solution (the dive stops when the relaxation is not better) */
+	public double incumbent = Double.MAX_VALUE;
 
-	/**
-	 * Number of nodes which are not assigned to a cluster
-	 */
-	public int unassignedNodes;
+	/** True if the last dive has been stopped before all the nodes were assigned */
+	public boolean stoppedEarly = false;
 
+	/** Number of relaxations solved during the last dive */
+	public int solvedRelaxations = 0;
 
-	public RepThenRelaxations(IFEdgeVNodeVClusterNbEdgeW s, ArrayList<CP_Separation<IFEdgeVNodeVClusterNbEdgeW>> sep_algo, RepParam param, double[][] objective) {
-		this.s = s;
-		clusterAssigned = new boolean[s.n()];
+	/* Variables whose bounds have been changed during the dive and their initial bounds */
+	private ArrayList<IloNumVar> fixedVar = new ArrayList<>();
+	private ArrayList<double[]> initialBounds = new ArrayList<>();
 
-		this.sep_algo = sep_algo;
-		this.param = param;
 
-		this.objective = objective;
+	public RepThenRelaxations(IFEdgeVNodeVClusterNbEdgeW s) {
+		this.s = s;
+		clusterAssigned = new boolean[s.n()];
 	}
 
 	@Override
 	public SolutionManagerRepresentative getMIPStart() throws IloException {
 
 		SolutionManagerRepresentative mip = new SolutionManagerRepresentative(s);
+		IloCplex cplex = s.getCplex().iloCplex;
 
-		TreeSet<Integer> t = new TreeSet<Integer>(new Comparator<Integer>(){
-
-
-			Random random = new Random();
-			double rep2 = -1;
-
-			@Override
-			public int compare(Integer o1, Integer o2) {
-
-				int result = 0;
-				try {
-					result = (int) (getRep(o2) - getRep(o1));
-				} catch (IloException e) {
-					e.printStackTrace();
-				}
-
-				if(result == 0){
-					if(random.nextInt(2) == 0)
-						result = -1;
-					else
-						result = 1;
-				}
-
-				return result;
-			}
-
-			public double getRep(int i) throws IloException{
-
-				return s.variableGetter().getValue(s.nodeVar(i));
-			
-			}
-		});
-
-		/* Add all the nodes in the representative tree */
-		for(int i = 0 ; i < s.n() ; ++i)
-			t.add(i);
-
-		/* Find the K representative by taking the K first values of <t> */		
+		int n = s.n();
+		int K = Math.min(n, s.maximalNumberOfClusters());
 
 		clusters = new ArrayList<ArrayList<Integer>>();
-		clusterAssigned = new boolean [s.n()];
+		clusterAssigned = new boolean [n];
+		stoppedEarly = false;
+		solvedRelaxations = 0;
 
 		/* Number of nodes which are not assigned to a cluster */
-		unassignedNodes = s.n();
+		unassignedNodes = n;
+
+		/* Find the K representative with the greatest values */
+		IloNumVar[] repVar = new IloNumVar[n];
 
+		for(int i = 0 ; i < n ; ++i)
+			repVar[i] = s.nodeVar(i);
 
-		Iterator<Integer> it = t.iterator();
-		int addedRep = 0;
+		int[] representative = RepresentativeSelection.largest(s.variableGetter().getValues(repVar), K);
 
-		System.out.print("Rep: ");
-		while(it.hasNext() && addedRep < s.maximalNumberOfClusters()){
+		for(int id : representative){
 
-			int id = it.next();
-			System.out.print(id + " ");
 			/* Create a new cluster with the node <id> in it */
 			ArrayList<Integer> al = new ArrayList<Integer>();
 			al.add(id);
 			clusters.add(al);
 
 			clusterAssigned[id] = true;
-
-			mip.setRep(id, 1.0);
-			addedRep ++;
 			unassignedNodes--;
-
 		}
-		System.out.println("");		
 
-		assignEdges(s);
+		int previousRootAlg = cplex.getParam(IntParam.RootAlg);
 
-		while(unassignedNodes > 0){
+		try{
 
-			PartitionWithRepresentative p = this.createPartition();
-			p.getCplex().solve();
+			/* The representatives are in different clusters */
+			for(int c = 0 ; c < K ; ++c)
+				for(int d = 0 ; d < c ; ++d)
+					fixBounds(s.edgeVar(representative[c], representative[d]), 0.0, 0.0);
 
-			assignEdges(p);		
+			s.getCplex().setParam(IntParam.RootAlg, IloCplex.Algorithm.Dual);
 
-		}
+			while(unassignedNodes > 0 && !stoppedEarly){
 
-		mip.evaluate();
+				assignEdges(representative);
 
-		for(ArrayList<Integer> c : clusters){
+				if(unassignedNodes > 0){
 
-			//System.out.println(c.toString());
-			for(int i = 0 ; i < c.size() ; ++i)
-				for(int j = 0 ; j < i ; ++j){
-					mip.setEdge(c.get(j), c.get(i), 1.0);
+					solvedRelaxations++;
+
+					if(!cplex.solve() || cplex.getObjValue() >= incumbent - 1E-6)
+						stoppedEarly = true;
 				}
+			}
+		}
+		finally{
+
+			/* Restore the formulation */
+			for(int v = fixedVar.size() - 1 ; v >= 0 ; --v){
+				fixedVar.get(v).setLB(initialBounds.get(v)[0]);
+				fixedVar.get(v).setUB(initialBounds.get(v)[1]);
+			}
+
+			fixedVar.clear();
+			initialBounds.clear();
+
+			s.getCplex().setParam(IntParam.RootAlg, previousRootAlg);
+
+			if(solvedRelaxations > 0)
+				cplex.solve();
 		}
 
+		if(stoppedEarly)
+			assignGreedily();
+
+		/* Set the solution (the representative of a cluster is its lowest node) */
+		int[] label = new int[n];
+
+		for(int c = 0 ; c < clusters.size() ; ++c)
+			for(int i : clusters.get(c))
+				label[i] = c;
+
+		mip.setLabels(label);
+
+		if(useLocalSearch)
+			LocalSearch.polish(mip, s);
+
 		return mip;
 	}
 
 	/**
 	 * Given a non integer solution and a set of incomplete clusters.
-	 * Set unassigned nodes in a cluster.
-	 * @param s2 Non integer solution
-	 * @throws IloException 
+	 * Set unassigned nodes in a cluster and fix the corresponding edge variables.
+	 * @param representative The representative of each cluster
+	 * @throws IloException
 	 */
-	private void assignEdges(IFEdgeVNodeVClusterNbEdgeW s2) throws IloException {
+	private void assignEdges(int[] representative) throws IloException {
+
+		int K = representative.length;
+
+		/* Get the values of the edges between the unassigned nodes and the representatives */
+		int[] unassigned = new int[unassignedNodes];
+		IloNumVar[] var = new IloNumVar[unassignedNodes * K];
+		int u = 0;
+
+		for(int i = 0 ; i < s.n() ; ++i)
+			if(!clusterAssigned[i]){
+				unassigned[u] = i;
+
+				for(int c = 0 ; c < K ; ++c)
+					var[u * K + c] = s.edgeVar(i, representative[c]);
+
+				u++;
+			}
+
+		double[] value = s.variableGetter().getValues(var);
 
 		double max_edge = -1.0;
 		int max_node = -1;
@@ -181,131 +190,94 @@ public class RepThenRelaxations implements AbstractMIPStartGetter{
 		boolean assignmentDone = false;
 
 		/* For each node which is not assigned to a cluster yet */
-		for(int i = 0 ; i < s2.n() ; ++i)
-
-			if(!clusterAssigned[i]){
-
-				int j = 0;
+		for(u = 0 ; u < unassigned.length ; ++u){
 
-				while(!clusterAssigned[i] && j < s2.maximalNumberOfClusters()){
+			int c = 0;
 
-					double value = s2.variableGetter().getValue(s2.edgeVar(i, clusters.get(j).get(0)));
+			while(!clusterAssigned[unassigned[u]] && c < K){
 
-					if(value > 1.0 - 1E-6){
-						clusters.get(j).add(i);
-						clusterAssigned[i] = true;
-						assignmentDone = true;
-						unassignedNodes--;
-					}
+				double v = value[u * K + c];
 
-					if(value > max_edge){
-						max_edge = value;
-						max_node = i;
-						max_cluster = j;
-					}
+				if(v > 1.0 - 1E-6){
+					assign(unassigned[u], c, representative);
+					assignmentDone = true;
+				}
 
-					++j;
+				if(v > max_edge){
+					max_edge = v;
+					max_node = unassigned[u];
+					max_cluster = c;
 				}
 
+				++c;
 			}
-
+		}
 
 		/* If no assignment was done, let x_i,r be the maximum edge such that :
 		 * 	- i is a unassigned node
 		 * 	- r is a representative
 		 * Add i in the cluster of r
 		 */
-		if(!assignmentDone && max_edge != -1.0){
-			clusters.get(max_cluster).add(max_node);
-			clusterAssigned[max_node] = true;
-			unassignedNodes--;
-		}
-
-		if(max_edge == -1.0){
-			System.out.println("Error no more nodes to assign");
-			System.exit(0);
-		}
-
+		if(!assignmentDone && max_node != -1)
+			assign(max_node, max_cluster, representative);
 	}
 
-	public PartitionWithRepresentative createPartition() throws IloException{
+	/**
+	 * Add a node in a cluster and fix its edges with the representatives
+	 */
+	private void assign(int i, int cluster, int[] representative) throws IloException{
 
-		PartitionWithRepresentative p = null;
-		param.useCplexPrimalDual = false;
-		param.useCplexAutoCuts = false;
-		param.tilim = 3600;
-		param.KMax = s.maximalNumberOfClusters();
-		param.KMin = s.minimalNumberOfClusters();
+		clusters.get(cluster).add(i);
+		clusterAssigned[i] = true;
+		unassignedNodes--;
 
-		if(this.param instanceof TildeParam)
-			p = new PartitionWithTildes(objective, (TildeParam) param);
-		else
-			p = new PartitionWithRepresentative(objective, param);
+		for(int c = 0 ; c < representative.length ; ++c)
+			if(c == cluster)
+				fixBounds(s.edgeVar(i, representative[c]), 1.0, 1.0);
+			else
+				fixBounds(s.edgeVar(i, representative[c]), 0.0, 0.0);
+	}
 
-		/* Add the original inequalities */ 
-		for(CP_Separation<IFEdgeVNodeVClusterNbEdgeW> sep : this.sep_algo)
-			for(AbstractInequality<? extends IFormulation> ineq : sep.addedIneq){
-				p.getCplex().addRange(ineq.createRange());
-			}
+	/**
+	 * Change the bounds of a variable and save its initial bounds
+	 */
+	private void fixBounds(IloNumVar var, double lb, double ub) throws IloException{
 
-		/* Add the inequalities which correspond to x_i,j = 1 for each i and j in the same cluster */
-		for(ArrayList<Integer> cluster : clusters)
-			for(int i = 0 ; i < cluster.size() ; ++i)
-				for(int j = 0 ; j < i ; ++j)
-					p.getCplex().addRange(new VarTo1Inequality(p, i, j).createRange());
+		fixedVar.add(var);
+		initialBounds.add(new double[]{var.getLB(), var.getUB()});
 
-		return p;
+		var.setLB(lb);
+		var.setUB(ub);
 	}
 
-
 	/**
-	 * Inequality x_i,j >= 1
-	 * @author zach
-	 *
+	 * Add each unassigned node in the cluster which minimizes the sum of the weights of its edges in the cluster
 	 */
-	@SuppressWarnings("serial")
-	private class VarTo1Inequality extends AbstractInequality<IFEdgeVNodeVClusterNbEdgeW>{
+	private void assignGreedily(){
 
-		int i;
-		int j;
+		for(int i = 0 ; i < s.n() ; ++i)
+			if(!clusterAssigned[i]){
 
-		public VarTo1Inequality(IFEdgeVNodeVClusterNbEdgeW s, int i, int j) {
-			super(s, IFEdgeVNodeVClusterNbEdgeW.class);
-			this.i = i;
-			this.j = j;
-		}
+				int bestCluster = 0;
+				double bestCost = Double.MAX_VALUE;
 
-		@Override
-		public Range createRange() {
+				for(int c = 0 ; c < clusters.size() ; ++c){
 
-			try{
+					double cost = 0.0;
 
-				IloLinearNumExpr expr = s.getCplex().linearNumExpr();
-				expr.addTerm(+1.0, s.edgeVar(i,j));
+					for(int j : clusters.get(c))
+						cost += s.edgeWeight(i, j);
 
-				return new Range(1.0, expr);
+					if(cost < bestCost){
+						bestCost = cost;
+						bestCluster = c;
+					}
+				}
 
-			}catch(IloException e){
-				e.printStackTrace();
-				return null;
+				clusters.get(bestCluster).add(i);
+				clusterAssigned[i] = true;
+				unassignedNodes--;
 			}
-		}
-
-		@Override
-		public AbstractInequality clone() {
-			return new VarTo1Inequality(s, i, j);
-		}
-
-		@Override
-		protected double evaluate(VariableGetter vg) throws IloException {
-			return vg.getValue(s.edgeVar(i,j));
-		}
-
-		@Override
-		public double getSlack(VariableGetter vg) throws IloException {
-			return this.evaluate(vg) - 1.0;
-		}
-
 	}
 
 }
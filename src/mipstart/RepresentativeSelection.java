@@ -0,0 +1,313 @@
+package mipstart;
+
+import java.util.Random;
+
+import formulation.interfaces.IFEdgeV;
+import formulation.interfaces.IFEdgeVNodeVClusterNbEdgeW;
+import formulation.interfaces.IFEdgeW;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import variable.VariableGetter;
+
+/**
+ * Create an integer solution from a continuous solution. Find the K nodes with
+ * the greatest value of their representative variables and select them as
+ * representative. For each other node i put it with the representative r which
+ * maximizes x_i,r
+ *
+ * The representative and edge values are read once (see readValues()) and stored in arrays.
+ * The K representatives are selected with a partial insertion sort and the nodes are assigned to their cluster in one pass, both in O(nK).
+ *
+ * Several randomized restarts can be performed. In each restart except the first one, a random noise is added to the representative values before selecting the representatives.
+ * The best solution over all the restarts is kept.
+ *
+ * @author zach
+ *
+ */
+public class RepresentativeSelection {
+
+	int n;
+
+	/** Number of representatives */
+	int K;
+
+	/** Variable associated to the representative of each node */
+	public IloNumVar[] nodeVar;
+
+	/** Edge variables (i, j) with i > j in the order i = 1..n-1, j = 0..i-1 (i.e., the order of the edges in SolutionManagerRepresentative) */
+	public IloNumVar[] edgeVar;
+
+	double[] weight;
+	double[] repValue;
+	double[] edgeValue;
+
+	/** Number of restarts performed by select() */
+	public int restartNb = 1;
+
+	/** Maximal noise added to the representative values in the randomized restarts */
+	public double noise = 0.1;
+
+	public Random random = new Random();
+
+	/** Cluster of each node in the best solution found (between 0 and K-1) */
+	public int[] label;
+
+	/** Lowest node of each cluster in the best solution found */
+	public int[] representative;
+
+	/** Objective of the best solution found */
+	public double objective = Double.MAX_VALUE;
+
+	/* Work arrays */
+	int[] selected;
+	double[] selectedValue;
+	int[] currentLabel;
+
+	public RepresentativeSelection(IFEdgeVNodeVClusterNbEdgeW formulation) throws IloException{
+		this(formulation, formulation, nodeVars(formulation), formulation.maximalNumberOfClusters());
+	}
+
+	/**
+	 * @param formulation The formulation which contains the edge variables
+	 * @param weights The weights of the edges
+	 * @param nodeVar The variable associated to the representative of each node
+	 * @param K Number of representatives to select
+	 * @throws IloException
+	 */
+	public RepresentativeSelection(IFEdgeV formulation, IFEdgeW weights, IloNumVar[] nodeVar, int K) throws IloException{
+
+		this.n = formulation.n();
+		this.K = Math.min(K, n);
+		this.nodeVar = nodeVar;
+
+		edgeVar = new IloNumVar[n * (n - 1) / 2];
+		weight = new double[edgeVar.length];
+		int v = 0;
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j){
+				edgeVar[v] = formulation.edgeVar(i, j);
+				weight[v] = weights.edgeWeight(i, j);
+				v++;
+			}
+
+		label = new int[n];
+		representative = new int[this.K];
+		selected = new int[this.K];
+		selectedValue = new double[this.K];
+		currentLabel = new int[n];
+	}
+
+	private static IloNumVar[] nodeVars(IFEdgeVNodeVClusterNbEdgeW formulation) throws IloException{
+
+		IloNumVar[] result = new IloNumVar[formulation.n()];
+
+		for(int i = 0 ; i < result.length ; ++i)
+			result[i] = formulation.nodeVar(i);
+
+		return result;
+	}
+
+	/**
+	 * Read the values of the representative and edge variables
+	 * @param vg The variable getter which provides the continuous solution
+	 * @throws IloException
+	 */
+	public void readValues(VariableGetter vg) throws IloException{
+		setValues(vg.getValues(nodeVar), vg.getValues(edgeVar));
+	}
+
+	/**
+	 * Set the values of the representative and edge variables
+	 * @param repValue Values of the variables of <nodeVar>
+	 * @param edgeValue Values of the variables of <edgeVar>
+	 */
+	public void setValues(double[] repValue, double[] edgeValue){
+		this.repValue = repValue;
+		this.edgeValue = edgeValue;
+	}
+
+	/**
+	 * Index of edge (i, j) in <edgeVar>
+	 */
+	public static int edgeIndex(int i, int j){
+
+		if(i > j)
+			return i * (i - 1) / 2 + j;
+		else
+			return j * (j - 1) / 2 + i;
+	}
+
+	/**
+	 * Perform the restarts and keep the best solution in <label> and <representative>
+	 * @return The objective of the best solution
+	 */
+	public double select(){
+
+		objective = Double.MAX_VALUE;
+
+		for(int r = 0 ; r < Math.max(1, restartNb) ; ++r){
+
+			selectRepresentatives(r > 0);
+			assignNodes();
+
+			double value = evaluate(currentLabel);
+
+			if(value < objective){
+				objective = value;
+				System.arraycopy(currentLabel, 0, label, 0, n);
+			}
+		}
+
+		/* Get the lowest node of each cluster */
+		for(int c = 0 ; c < K ; ++c)
+			representative[c] = -1;
+
+		for(int i = 0 ; i < n ; ++i)
+			if(representative[label[i]] == -1)
+				representative[label[i]] = i;
+
+		return objective;
+	}
+
+	/**
+	 * Put the K nodes with the greatest representative values in <selected> (by decreasing value)
+	 * @param perturb True if a random noise is added to the values
+	 */
+	private void selectRepresentatives(boolean perturb){
+
+		int size = 0;
+
+		for(int i = 0 ; i < n ; ++i){
+
+			double v = repValue[i];
+
+			if(perturb)
+				v += noise * random.nextDouble();
+
+			int pos;
+
+			if(size < K){
+				pos = size;
+				size++;
+			}
+			else if(v > selectedValue[K - 1])
+				pos = K - 1;
+			else
+				continue;
+
+			/* Insert node i at its position */
+			while(pos > 0 && selectedValue[pos - 1] < v){
+				selected[pos] = selected[pos - 1];
+				selectedValue[pos] = selectedValue[pos - 1];
+				pos--;
+			}
+
+			selected[pos] = i;
+			selectedValue[pos] = v;
+		}
+	}
+
+	/**
+	 * Get the K nodes with the greatest values (with a partial insertion sort in O(nK))
+	 * @param value Value of each node
+	 * @param K Number of nodes to select
+	 * @return The selected nodes by decreasing value
+	 */
+	public static int[] largest(double[] value, int K){
+
+		K = Math.min(K, value.length);
+		int[] result = new int[K];
+		double[] resultValue = new double[K];
+		int size = 0;
+
+		for(int i = 0 ; i < value.length ; ++i){
+
+			int pos;
+
+			if(size < K){
+				pos = size;
+				size++;
+			}
+			else if(value[i] > resultValue[K - 1])
+				pos = K - 1;
+			else
+				continue;
+
+			while(pos > 0 && resultValue[pos - 1] < value[i]){
+				result[pos] = result[pos - 1];
+				resultValue[pos] = resultValue[pos - 1];
+				pos--;
+			}
+
+			result[pos] = i;
+			resultValue[pos] = value[i];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Put each node which is not a representative in the cluster of the representative r which maximizes x_i,r
+	 */
+	private void assignNodes(){
+
+		for(int i = 0 ; i < n ; ++i)
+			currentLabel[i] = -1;
+
+		for(int c = 0 ; c < K ; ++c)
+			currentLabel[selected[c]] = c;
+
+		for(int i = 0 ; i < n ; ++i)
+			if(currentLabel[i] == -1){
+
+				int bestCluster = 0;
+				double bestValue = -Double.MAX_VALUE;
+
+				for(int c = 0 ; c < K ; ++c){
+
+					double v = edgeValue[edgeIndex(i, selected[c])];
+
+					if(v > bestValue){
+						bestValue = v;
+						bestCluster = c;
+					}
+				}
+
+				currentLabel[i] = bestCluster;
+			}
+	}
+
+	/**
+	 * @return The sum of the weights of the edges inside the clusters of a solution
+	 */
+	public double evaluate(int[] l){
+
+		double result = 0.0;
+		int v = 0;
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j){
+				if(l[i] == l[j])
+					result += weight[v];
+				v++;
+			}
+
+		return result;
+	}
+
+	/**
+	 * Set the representative and edge variables of the best solution found in a solution manager
+	 */
+	public void setSolution(SolutionManagerRepresentative sm){
+
+		for(int c = 0 ; c < K ; ++c)
+			sm.setRep(representative[c], 1.0);
+
+		for(int i = 1 ; i < n ; ++i)
+			for(int j = 0 ; j < i ; ++j)
+				if(label[i] == label[j])
+					sm.setEdge(i, j, 1.0);
+	}
+
+}
@@ -20,9 +20,13 @@ public class SolutionManagerRepresentative {
 	HashMap<Edge, Integer> id = new HashMap<SolutionManagerRepresentative.Edge, Integer>();
 	IFEdgeVNodeVClusterNbEdgeW formulation;
 
+	/** True if the last variable of <var> is the number of edges in the clusters (see Partition.nn1Edges), its value is updated each time an edge variable is set */
+	boolean hasNN_1Edges;
+
 	public SolutionManagerRepresentative(IFEdgeVNodeVClusterNbEdgeW formulation) throws IloException{
 
 		this.formulation = formulation;
+		hasNN_1Edges = MIPStartExpansion.nn1EdgesVar(formulation) != null;
 		var = new IloNumVar[arraySize()];
 		val = new double[arraySize()];
 
@@ -31,7 +35,7 @@ public class SolutionManagerRepresentative {
 	}
 	
 	private int arraySize() {
-		return formulation.n() + formulation.n() * (formulation.n() - 1) / 2;
+		return formulation.n() + formulation.n() * (formulation.n() - 1) / 2 + (hasNN_1Edges ? 1 : 0);
 	}
 
 	public void setValToZeroAndCreateID(int n){
@@ -51,6 +55,8 @@ public class SolutionManagerRepresentative {
 				v++;
 			}
 
+		if(hasNN_1Edges)
+			val[v] = 0;
 	}
 
 	public void setVar() throws IloException{
@@ -69,6 +75,8 @@ public class SolutionManagerRepresentative {
 			}
 		}
 
+		if(hasNN_1Edges)
+			var[v] = MIPStartExpansion.nn1EdgesVar(formulation);
 	}
 
 	/**
@@ -82,7 +90,73 @@ public class SolutionManagerRepresentative {
 	}
 
 	public void setEdge(int i, int j, double value){
-		this.val[id.get(new Edge(i,j))] = value;
+
+		int v = id.get(new Edge(i,j));
+
+		if(hasNN_1Edges)
+			val[val.length - 1] += value - val[v];
+
+		this.val[v] = value;
+	}
+
+	/**
+	 * Get the cluster of each node. The solution must be integer and its edge variables must satisfy the triangle inequalities.
+	 * @return Array which contains in position i the lowest node in the cluster of node i
+	 */
+	public int[] labels(){
+
+		int n = formulation.n();
+		int[] label = new int[n];
+
+		for(int i = 0 ; i < n ; ++i){
+
+			label[i] = i;
+
+			/* Index of edge (i, 0) in <val> */
+			int v = n + i * (i - 1) / 2;
+
+			for(int j = 0 ; j < i && label[i] == i ; ++j)
+				if(val[v + j] > 0.5)
+					label[i] = label[j];
+		}
+
+		return label;
+	}
+
+	/**
+	 * Set the solution which corresponds to a partition of the nodes
+	 * @param label Cluster of each node
+	 */
+	public void setLabels(int[] label){
+
+		int n = formulation.n();
+
+		for(int v = 0 ; v < val.length ; ++v)
+			val[v] = 0.0;
+
+		/* The representative of a cluster is its lowest node */
+		int v = n;
+
+		for(int i = 0 ; i < n ; ++i){
+
+			boolean isRepresentative = true;
+
+			for(int j = 0 ; j < i ; ++j){
+				if(label[i] == label[j]){
+					val[v] = 1.0;
+					isRepresentative = false;
+
+					if(hasNN_1Edges)
+						val[val.length - 1]++;
+				}
+				v++;
+			}
+
+			if(isRepresentative)
+				val[i] = 1.0;
+		}
+
+		evaluation = -1.0;
 	}
 
 	/**
@@ -24,9 +24,13 @@ public class SolutionManagerTildes {
 	HashMap<Edge, Integer> idNC = new HashMap<SolutionManagerTildes.Edge, Integer>();
 	PartitionWithTildes formulation;
 
+	/** True if the last variable of <var> is the number of edges in the clusters (see Partition.nn1Edges), its value is updated each time an edge variable is set */
+	boolean hasNN_1Edges;
+
 	public SolutionManagerTildes(PartitionWithTildes formulation) throws IloException{
 
 		this.formulation = formulation;
+		hasNN_1Edges = MIPStartExpansion.nn1EdgesVar(formulation) != null;
 		var = new IloNumVar[arraySize()];
 		val = new double[arraySize()];
 
@@ -65,6 +69,8 @@ public class SolutionManagerTildes {
 				v++;
 			}
 
+		if(hasNN_1Edges)
+			val[v] = 0;
 	}
 
 	public void setVar() throws IloException{
@@ -88,6 +94,8 @@ public class SolutionManagerTildes {
 			}
 		}
 
+		if(hasNN_1Edges)
+			var[v] = MIPStartExpansion.nn1EdgesVar(formulation);
 	}
 
 	/**
@@ -102,12 +110,18 @@ public class SolutionManagerTildes {
 	}
 
 	public void setEdge(int i, int j, double value){
-		this.val[idEdge.get(new Edge(i,j))] = value;
+
+		int v = idEdge.get(new Edge(i,j));
+
+		if(hasNN_1Edges)
+			val[val.length - 1] += value - val[v];
+
+		this.val[v] = value;
 	}
 
 	public void setNC(int i, int j, double value){
 		if(i == 0 || j == 0)
-			this.val[idEdge.get(new Edge(i,j))] = value;
+			setEdge(i, j, value);
 		else
 			this.val[idNC.get(new Edge(i,j))] = value;
 	}
@@ -176,7 +190,7 @@ public class SolutionManagerTildes {
 			return evaluation;
 	}
 	
-	public int arraySize() {return formulation.n() - 3 + 2 * formulation.n() * (formulation.n() - 1) / 2 - (formulation.n() - 1);} 
+	public int arraySize() {return formulation.n() - 3 + 2 * formulation.n() * (formulation.n() - 1) / 2 - (formulation.n() - 1) + (hasNN_1Edges ? 1 : 0);} 
 
 	/**
 	 * Update the formulation and the variables but keep the values. The number of nodes must be the same in both formulations
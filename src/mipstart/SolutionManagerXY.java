@@ -21,9 +21,13 @@ public class SolutionManagerXY {
 	HashMap<Edge, Integer> idNC = new HashMap<SolutionManagerXY.Edge, Integer>();
 	PartitionXY formulation;
 
+	/** True if the last variable of <var> is the number of edges in the clusters (see Partition.nn1Edges), its value is updated each time an edge variable is set */
+	boolean hasNN_1Edges;
+
 	public SolutionManagerXY(PartitionXY formulation) throws IloException{
 
 		this.formulation = formulation;
+		hasNN_1Edges = MIPStartExpansion.nn1EdgesVar(formulation) != null;
 		var = new IloNumVar[arraySize()];
 		val = new double[arraySize()];
 
@@ -55,11 +59,13 @@ public class SolutionManagerXY {
 				//System.out.println(i + " - "+ j);				
 				v++;
 			}
-		
+
+		if(hasNN_1Edges)
+			val[v] = 0;
 	}
 
 	private int arraySize() {
-		return formulation.n() * (formulation.n() - 1) / 2 + formulation.n() * formulation.maxClusterId;
+		return formulation.n() * (formulation.n() - 1) / 2 + formulation.n() * formulation.maxClusterId + (hasNN_1Edges ? 1 : 0);
 	}
 	
 	public void setVar() throws IloException{
@@ -83,10 +89,18 @@ public class SolutionManagerXY {
 				v++;
 			}
 
+		if(hasNN_1Edges)
+			var[v] = MIPStartExpansion.nn1EdgesVar(formulation);
 	}
 
 	public void setEdge(int i, int j, double value){
-		this.val[idEdge.get(new Edge(i,j))] = value;
+
+		int v = idEdge.get(new Edge(i,j));
+
+		if(hasNN_1Edges)
+			val[val.length - 1] += value - val[v];
+
+		this.val[v] = value;
 	}
 
 	public void setNC(int i, int j, double value){
@@ -10,6 +10,12 @@ public class CPResult extends ResultOld{
 	public double cp_time;
 	public ArrayList<Cut> cpCutNb = new ArrayList<ResultOld.Cut>();
 	public int cp_iteration;
+
+	/* Time spent to create the model (not included in cp_time) */
+	public double buildTime = 0.0;
+
+	/* Number of variables fixed by reduced cost between the cutting plane step and the branch and cut */
+	public int rc_fixed_variables;
 	
 	/* Integer.MAX_VALUE if inequalities are never removed during the cutting_plane step.
 	 * Otherwise it is equal to the number of iterations between the removal of inequalities
@@ -38,6 +44,9 @@ public class CPResult extends ResultOld{
 
 		log += n + "," + K + "," + i + ")\n";
 
+		if(buildTime > 0.0)
+			log += "\tbuild time:\t" + nf1.format(buildTime) + "s"  + "\n";
+
 		log += "\tcp time:\t" + nf0.format(cp_time) + "s"  + "\n";
 
 		if(time != -1.0)
@@ -0,0 +1,173 @@
+package results;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Write one JSON record by iteration of a cutting plane step (JSON lines format).
+ *
+ * Each record contains:
+ * - the iteration number and the time since the beginning of the cutting plane step;
+ * - the time spent to solve the relaxation;
+ * - for each separation family used during the iteration: its time and its number of cuts;
+ * - the number of inequalities removed from the model;
+ * - the number of rows in the model;
+ * - the value of the relaxation and of the best integer solution.
+ *
+ * Each record is flushed once written so that the file is usable even if the execution is interrupted.
+ *
+ * @author zach
+ *
+ */
+public class CPTelemetry {
+
+	private BufferedWriter writer;
+
+	/** Identifier added to each record (e.g., the instance id) */
+	public String runId;
+
+	/* Separation families used during the current iteration */
+	private ArrayList<String> familyName = new ArrayList<>();
+	private ArrayList<Double> familyTime = new ArrayList<>();
+	private ArrayList<Integer> familyCutNb = new ArrayList<>();
+
+	private StringBuilder record = new StringBuilder();
+
+	/**
+	 * @param outputFile File in which the records are written
+	 * @param append True if the records are added at the end of the file ; false if the file is overwritten
+	 * @param runId Identifier added to each record
+	 */
+	public CPTelemetry(String outputFile, boolean append, String runId){
+
+		this.runId = runId;
+
+		try {
+			writer = new BufferedWriter(new FileWriter(outputFile, append));
+		} catch (IOException e) {
+			e.printStackTrace();
+			writer = null;
+		}
+	}
+
+	/**
+	 * Start a new iteration
+	 */
+	public void startIteration(){
+		familyName.clear();
+		familyTime.clear();
+		familyCutNb.clear();
+	}
+
+	/**
+	 * Add the result of a separation algorithm in the current iteration
+	 * @param name Name of the separation family
+	 * @param time Time spent in the separation (in seconds)
+	 * @param cutNb Number of cuts found
+	 */
+	public void addSeparation(String name, double time, int cutNb){
+		familyName.add(name);
+		familyTime.add(time);
+		familyCutNb.add(cutNb);
+	}
+
+	/**
+	 * Write the record of the current iteration
+	 * @param iteration Iteration number
+	 * @param time Time since the beginning of the cutting plane step (in seconds)
+	 * @param lpTime Time spent to solve the relaxation (in seconds)
+	 * @param removedCutNb Number of inequalities removed from the model
+	 * @param rowNb Number of rows in the model
+	 * @param relaxation Value of the relaxation
+	 * @param bestInt Value of the best known integer solution (Double.MAX_VALUE if none is known)
+	 */
+	public void endIteration(int iteration, double time, double lpTime, int removedCutNb, int rowNb, double relaxation, double bestInt){
+
+		if(writer == null)
+			return;
+
+		record.setLength(0);
+
+		record.append("{\"run\":");
+		appendString(runId);
+		record.append(",\"it\":").append(iteration);
+		record.append(",\"time\":").append(time);
+		record.append(",\"lp_time\":").append(lpTime);
+		record.append(",\"families\":[");
+
+		for(int i = 0 ; i < familyName.size() ; ++i){
+
+			if(i > 0)
+				record.append(',');
+
+			record.append("{\"name\":");
+			appendString(familyName.get(i));
+			record.append(",\"time\":").append(familyTime.get(i));
+			record.append(",\"cuts\":").append(familyCutNb.get(i));
+			record.append('}');
+		}
+
+		record.append("],\"removed\":").append(removedCutNb);
+		record.append(",\"rows\":").append(rowNb);
+		record.append(",\"relaxation\":");
+		appendNumber(relaxation);
+		record.append(",\"best_int\":");
+		appendNumber(bestInt);
+		record.append('}');
+
+		try {
+			writer.write(record.toString());
+			writer.newLine();
+			writer.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public void close(){
+
+		if(writer != null)
+			try {
+				writer.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+		writer = null;
+	}
+
+	private void appendNumber(double d){
+
+		if(Double.isNaN(d) || Double.isInfinite(d) || Math.abs(d) == Double.MAX_VALUE)
+			record.append("null");
+		else
+			record.append(d);
+	}
+
+	private void appendString(String s){
+
+		if(s == null){
+			record.append("null");
+			return;
+		}
+
+		record.append('"');
+
+		for(int i = 0 ; i < s.length() ; ++i){
+
+			char c = s.charAt(i);
+
+			if(c == '"' || c == '\\')
+				record.append('\\').append(c);
+			else if(c < 0x20)
+				record.append(' ');
+			else
+				record.append(c);
+		}
+
+		record.append('"');
+	}
+
+}
@@ -55,7 +55,7 @@ public abstract class AbstractKLSeparation<Formulation extends IFormulation> ext
 
 		violatedCut = new ArrayList<Cut>();
 
-		for(it = 0 ; it < iterations_nb ; ++it){			
+		for(it = 0 ; it < iterations_nb && !mustStop() ; ++it){			
 
 			Cut bestInCurrentPhase = new Cut();
 			Cut bestInPreviousPhase = new Cut();
@@ -120,6 +120,12 @@ public abstract class AbstractKLSeparation<Formulation extends IFormulation> ext
 					/* If the best cut of this iteration is not better than the previous one, the iteration end */
 					if(bestInCurrentPhase.slack >= bestInPreviousPhase.slack - eps)
 						isOver = true;
+
+					/* If the deadline is reached, keep the best cut of this phase and end the iteration */
+					else if(mustStop()){
+						bestInPreviousPhase = new Cut(bestInCurrentPhase);
+						isOver = true;
+					}
 					/* Else start a new iteration with the best sets of this iteration */
 					else{
 						setSets(bestInCurrentPhase.sets);
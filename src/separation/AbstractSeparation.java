@@ -22,6 +22,15 @@ public abstract class AbstractSeparation<Formulation extends IFormulation>{
 	protected VariableGetter vg;
 	protected Formulation formulation;
 
+	/** Date (see System.nanoTime()) after which the separation must stop and return the inequalities found so far (Long.MAX_VALUE if there is no deadline) */
+	private volatile long deadline = Long.MAX_VALUE;
+
+	/** True if the separation has been cancelled */
+	private volatile boolean cancelled = false;
+
+	/** True if the last call to separate() has been stopped before its end (because of the deadline or a cancellation) */
+	public boolean stoppedEarly = false;
+
 	public AbstractSeparation(String name, Formulation formulation, VariableGetter vg){
 		this.name = name;
 		this.vg = vg;
@@ -32,6 +41,17 @@ public abstract class AbstractSeparation<Formulation extends IFormulation>{
 		
 	}
 
+	public VariableGetter getVariableGetter(){
+		return vg;
+	}
+
+	/**
+	 * Set the object which provides the solution to separate (e.g., a snapshot of a relaxation when the separation is performed in another thread)
+	 */
+	public void setVariableGetter(VariableGetter vg){
+		this.vg = vg;
+	}
+
 	/**
 	 * Find cut that separate the relaxation from the integer polyhedron.
 	 * @return The list of violated inequalities found.
@@ -39,6 +59,52 @@ public abstract class AbstractSeparation<Formulation extends IFormulation>{
 	 */
 	public abstract ArrayList<AbstractInequality<? extends IFormulation>> separate();
 
+	/**
+	 * Give a time budget to the next calls to separate().
+	 * The separation algorithms which may be long check the deadline in their main loops and return the inequalities found so far once it is reached.
+	 * @param budget Time in seconds from now ; a negative value removes the deadline
+	 */
+	public void setTimeBudget(double budget){
+
+		stoppedEarly = false;
+		cancelled = false;
+
+		if(budget < 0)
+			deadline = Long.MAX_VALUE;
+		else
+			deadline = System.nanoTime() + (long)(budget * 1E9);
+	}
+
+	/**
+	 * Remove the deadline and the cancellation of the separation (<stoppedEarly> is kept)
+	 */
+	public void clearDeadline(){
+		deadline = Long.MAX_VALUE;
+		cancelled = false;
+	}
+
+	/**
+	 * Ask the separation to stop as soon as possible (can be called from another thread).
+	 * The cancellation is removed by the next call to setTimeBudget().
+	 */
+	public void cancel(){
+		cancelled = true;
+	}
+
+	/**
+	 * Test if the separation must stop (must be checked by the separation algorithms in their main loops)
+	 * @return True if the deadline is reached or if the separation has been cancelled
+	 */
+	protected boolean mustStop(){
+
+		boolean stop = cancelled || (deadline != Long.MAX_VALUE && System.nanoTime() > deadline);
+
+		if(stop)
+			stoppedEarly = true;
+
+		return stop;
+	}
+
 	public AbstractCutCallback createDefaultCallback(PartitionWithRepresentative p){
 		DefaultCallback d = new DefaultCallback(p);
 
@@ -59,7 +125,12 @@ public abstract class AbstractSeparation<Formulation extends IFormulation>{
 
 		@Override
 		public void separates() throws IloException{
+
+			if(!shouldSeparate(AbstractSeparation.this))
+				return;
+
 			ArrayList<AbstractInequality<? extends IFormulation>> ineq = separate();
+			recordSeparation(AbstractSeparation.this, ineq.size());
 
 			for(AbstractInequality<? extends IFormulation> i : ineq)
 				this.addRange(i.getRange(), 0);
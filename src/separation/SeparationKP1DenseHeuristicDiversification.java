@@ -29,7 +29,7 @@ public class SeparationKP1DenseHeuristicDiversification extends SeparationKp1Den
 		
 		int i = 0;
 		
-		while(i < formulation.n()){
+		while(i < formulation.n() && !mustStop()){
 			
 			if(nodeToPutInSet[i]){
 //System.out.println("Node forced: " + i);
@@ -29,14 +29,14 @@ public class SeparationKp1Exhaustif extends AbstractSeparation<IFEdgeVClusterNb>
 		
 		ArrayList<AbstractInequality<? extends IFormulation>> result = new ArrayList<>();
 
-		for(int size = formulation.maximalNumberOfClusters()+1 ; size <= 2*formulation.maximalNumberOfClusters()-1 ; ++size){ 
+		for(int size = formulation.maximalNumberOfClusters()+1 ; size <= 2*formulation.maximalNumberOfClusters()-1 && !mustStop() ; ++size){ 
 			ArrayList<Integer> set = new ArrayList<Integer>();
 			
 			/* Create the first set */
 			for(int i = 0 ; i < size+1 ; i++)
 				set.add(i);
 			
-			while(set != null){
+			while(set != null && !mustStop()){
 				AbstractInequality<IFEdgeVClusterNb> ineq;
 				try {
 					ineq = getInequality(set);
@@ -24,7 +24,7 @@ public class SeparationPawInequalitiesExhaustive extends AbstractSeparation<IFEd
 
 		ArrayList<AbstractInequality<? extends IFormulation>> result = new ArrayList<>();
 		
-			for(int b = 3 ;  b < formulation.n(); ++b)
+			for(int b = 3 ;  b < formulation.n() && !mustStop(); ++b)
 				for(int c = b+1 ; c < formulation.n(); ++c){
 					
 					double v;
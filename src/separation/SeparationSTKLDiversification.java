@@ -29,8 +29,8 @@ public class SeparationSTKLDiversification extends SeparationSTKL{
 				
 		ArrayList<AbstractInequality<? extends IFormulation>> r = new ArrayList<>();
 		
-		for(cn1 = 0 ; cn1 < formulation.n() ; ++cn1)
-			for(cn2 = cn1+1 ; cn2 < formulation.n() ; ++cn2){
+		for(cn1 = 0 ; cn1 < formulation.n() && !mustStop() ; ++cn1)
+			for(cn2 = cn1+1 ; cn2 < formulation.n() && !mustStop() ; ++cn2){
 //System.out.println("cn1,cn2: " + cn1 + "," + cn2);				
 				r.addAll(super.separate());
 				
@@ -51,7 +51,7 @@ public class SeparationSubRepresentativeSansDoublon extends AbstractSeparation<I
 				if(sri.evaluate(vg) < 0.0 - 1E-5){
 					result.add(sri);
 					ineq.remove(i);
-					CBAddSubRepInequalities.addedInequalities++;
+					CBAddSubRepInequalities.countAddedInequality();
 				}
 			} catch (IloException e) {
 				e.printStackTrace();
@@ -73,7 +73,7 @@ public class SeparationTCCKLFixedSize extends AbstractKLSeparation<IFEdgeV>{
 		ArrayList<AbstractInequality<? extends IFormulation>> result = new ArrayList<>();
 		
 		/* For each size of cycle */
-		for(int s = 0 ; s < sizesCycle.size() ; s++){
+		for(int s = 0 ; s < sizesCycle.size() && !mustStop() ; s++){
 					
 			if(!stopIteratingWhenCutFound || result.size() == 0){
 				size = sizesCycle.get(s);
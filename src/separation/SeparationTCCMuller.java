@@ -145,7 +145,8 @@ public class SeparationTCCMuller extends AbstractSeparation<IFEdgeV>{
 					}
 			}
 		
-		for(int k = 0 ; k < n2 ; ++k)
+		/* If the deadline is reached, the remaining iterations are skipped: each distance is still the length of an existing path, only some violated inequalities may be missed */
+		for(int k = 0 ; k < n2 && !mustStop() ; ++k)
 			for(int i = 0 ; i < n2 ; ++i)
 				for(int j = 0 ; j < n2 ; ++j){
 					
@@ -152,7 +152,8 @@ public class SeparationTCCMullerImprovement extends AbstractSeparation<IFEdgeV>{
 						}
 				}
 
-			for(int k = 0 ; k < n2 ; ++k)
+			/* If the deadline is reached, the remaining iterations are skipped (see SeparationTCCMuller) */
+			for(int k = 0 ; k < n2 && !mustStop() ; ++k)
 				for(int i = 0 ; i < n2 ; ++i)
 					for(int j = 0 ; j < n2 ; ++j){
 
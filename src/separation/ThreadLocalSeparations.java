@@ -0,0 +1,80 @@
+package separation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Separation algorithms of a callback with one copy by thread.
+ *
+ * The separation algorithms contain mutable working data (e.g., the inequalities found by SeparationTriangle or the sets of the Kernighan-Lin algorithms) and can thus not be shared by the threads of cplex.
+ * The copy of a thread is created the first time the thread calls get().
+ *
+ * @author zach
+ *
+ */
+@SuppressWarnings("rawtypes")
+public abstract class ThreadLocalSeparations {
+
+	/** Copies of the separation algorithms created for all the threads */
+	private final ArrayList<ArrayList<AbstractSeparation<?>>> all = new ArrayList<>();
+
+	private final ThreadLocal<ArrayList<AbstractSeparation<?>>> local = new ThreadLocal<ArrayList<AbstractSeparation<?>>>(){
+
+		@Override
+		protected ArrayList<AbstractSeparation<?>> initialValue() {
+
+			ArrayList<AbstractSeparation<?>> s = create();
+
+			synchronized(all){
+				all.add(s);
+			}
+
+			return s;
+		}
+	};
+
+	/**
+	 * Create a new copy of the separation algorithms
+	 * @return The separation algorithms (always in the same order)
+	 */
+	protected abstract ArrayList<AbstractSeparation<?>> create();
+
+	/**
+	 * @return The separation algorithms of the current thread
+	 */
+	public ArrayList<AbstractSeparation<?>> get(){
+		return local.get();
+	}
+
+	/**
+	 * @return The number of threads which have used the separation algorithms
+	 */
+	public int threadNb(){
+
+		synchronized(all){
+			return all.size();
+		}
+	}
+
+	/**
+	 * Set the number of cuts added by each separation algorithm of a list to the total number of cuts added by its copies
+	 * @param target Separation algorithms in the same order as those returned by create()
+	 */
+	public void mergeStatistics(List<AbstractSeparation<?>> target){
+
+		synchronized(all){
+
+			for(int i = 0 ; i < target.size() ; ++i){
+
+				int addedCuts = 0;
+
+				for(ArrayList<AbstractSeparation<?>> s : all)
+					if(i < s.size())
+						addedCuts += s.get(i).added_cuts;
+
+				target.get(i).added_cuts = addedCuts;
+			}
+		}
+	}
+
+}
@@ -16,4 +16,9 @@ public class CplexVariableGetter extends VariableGetter {
 		return cplex.iloCplex.getValue(var);
 	}
 
+	@Override
+	public double[] getValues(IloNumVar[] vars) throws UnknownObjectException, IloException {
+		return cplex.iloCplex.getValues(vars);
+	}
+
 }
@@ -0,0 +1,46 @@
+package variable;
+
+import java.util.HashMap;
+
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex.UnknownObjectException;
+
+/**
+ * Copy of the values of a set of variables in a given solution.
+ * Once created, the snapshot does not depend on cplex anymore and can be read from any thread (e.g., while cplex solves the next relaxation).
+ *
+ * @author zach
+ *
+ */
+public class SnapshotVariableGetter extends VariableGetter {
+
+	HashMap<IloNumVar, Double> value;
+
+	/**
+	 * @param source The variable getter which provides the solution
+	 * @param vars The variables whose value is copied
+	 * @throws IloException
+	 */
+	public SnapshotVariableGetter(VariableGetter source, IloNumVar[] vars) throws IloException {
+		super(source.cplex);
+
+		double[] values = source.getValues(vars);
+		value = new HashMap<>(2 * vars.length);
+
+		for(int i = 0 ; i < vars.length ; ++i)
+			value.put(vars[i], values[i]);
+	}
+
+	@Override
+	public double getValue(IloNumVar var) throws UnknownObjectException, IloException {
+
+		Double result = value.get(var);
+
+		if(result == null)
+			throw new IloException("Variable " + var + " is not in the snapshot");
+
+		return result;
+	}
+
+}
@@ -15,4 +15,22 @@ public abstract class VariableGetter {
 	
 	public abstract double getValue(IloNumVar var) throws UnknownObjectException, IloException;
 
+	/**
+	 * Get the value of several variables at once.
+	 * By default each value is obtained through getValue(); subclasses which can retrieve all the values in one call should override this method.
+	 * @param vars The variables
+	 * @return An array which contains in position i the value of vars[i]
+	 * @throws UnknownObjectException
+	 * @throws IloException
+	 */
+	public double[] getValues(IloNumVar[] vars) throws UnknownObjectException, IloException{
+
+		double[] values = new double[vars.length];
+
+		for(int i = 0 ; i < vars.length ; ++i)
+			values[i] = getValue(vars[i]);
+
+		return values;
+	}
+
 }